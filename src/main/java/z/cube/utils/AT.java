@@ -1,12 +1,11 @@
 package z.cube.utils;
 
-import org.springframework.core.DefaultParameterNameDiscoverer;
-import org.springframework.core.ParameterNameDiscoverer;
-
 import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.function.Predicate;
@@ -25,10 +24,17 @@ public class AT {
      */
     private final Object object;
     /**
-     * 参数名称发现类，用于寻找方法或构造函数中参数的名称
-     * ParameterNameDiscoverer 线程安全
+     * 参数所属的方法或构造函数，仅在参数对应的AT对象上存在
+     */
+    private final Member source;
+    /**
+     * 参数索引位置
+     */
+    private final int index;
+    /**
+     * 跟踪器，为null时不跟踪
      */
-    private static final ParameterNameDiscoverer PND = new DefaultParameterNameDiscoverer();
+    private static volatile ATTracer tracer;
 
     /**
      * 私有构造函数
@@ -36,13 +42,51 @@ public class AT {
      * @param obj
      */
     private AT(Object obj) {
+        this(obj, null, -1);
+    }
+
+    /**
+     * 私有构造函数
+     *
+     * @param obj    存放对象
+     * @param source 参数所属的方法或构造函数
+     * @param index  参数索引位置
+     */
+    private AT(Object obj, Member source, int index) {
         this.object = obj;
+        this.source = source;
+        this.index = index;
+        ATTracer t = tracer;
+        if (t != null && obj instanceof AnnotatedElement) {
+            t.element((AnnotatedElement) obj);
+        }
+    }
+
+    /**
+     * 设置跟踪器，用于记录AT访问过的元素和注解
+     *
+     * @param t 跟踪器，为null时关闭跟踪
+     * @return 原来的跟踪器
+     */
+    public static ATTracer trace(ATTracer t) {
+        ATTracer previous = tracer;
+        tracer = t;
+        return previous;
+    }
+
+    /**
+     * 获取当前的跟踪器
+     * (包内可见，供Selector等使用)
+     */
+    static ATTracer tracer() {
+        return tracer;
     }
 
     /**
      * 用于统一 at方法
+     * (包内可见，供Selector等使用)
      */
-    private static AT _at(Object obj) {
+    static AT _at(Object obj) {
         return new AT(obj);
     }
 
@@ -81,6 +125,33 @@ public class AT {
         return _at(p);
     }
 
+    /**
+     * 根据选择器获取注解所在位置
+     * 选择器的类型需为全限定名，例如"z.cube.utils.Person#setName(String)/name@NotNull"
+     *
+     * @param selector 选择器字符串
+     * @return 第一个匹配位置创建的AT对象
+     * @see Selector
+     */
+    public static AT at(String selector) {
+        return Selector.compile(selector).select();
+    }
+
+    /**
+     * 在当前Class上执行选择器
+     * 例如 at(Person.class).select("#*@XmlAttribute")
+     *
+     * @param selector 选择器字符串，可省略类型
+     * @return 所有匹配位置创建的AT对象
+     * @see Selector
+     */
+    public List<AT> select(String selector) {
+        if (this.object instanceof Class) {
+            return Selector.compile(selector).selectAll((Class<?>) this.object);
+        }
+        throw new RuntimeException("非Class对象无法执行选择器!");
+    }
+
     /**
      * 获取匹配的字段
      *
@@ -91,7 +162,7 @@ public class AT {
         if (this.object instanceof Class) {
             try {
                 Class<?> clazz = (Class<?>) this.object;
-                Field field = clazz.getDeclaredField(name);
+                Field field = ClassMetadata.of(clazz).field(name);
                 return new AT(field);
             } catch (Exception e) {
                 throw new RuntimeException(e.getMessage(), e);
@@ -112,7 +183,7 @@ public class AT {
         if (this.object instanceof Class) {
             try {
                 Class<?> clazz = (Class<?>) this.object;
-                Method method = clazz.getDeclaredMethod(name, args);
+                Method method = ClassMetadata.of(clazz).method(name, args);
                 return new AT(method);
             } catch (Exception e) {
                 throw new RuntimeException(e.getMessage(), e);
@@ -142,7 +213,27 @@ public class AT {
         if (this.object instanceof Class) {
             try {
                 Class<?> clazz = (Class<?>) this.object;
-                Constructor<?> constructor = clazz.getConstructor(parameterTypes);
+                Constructor<?> constructor = ClassMetadata.of(clazz).constructor(parameterTypes);
+                return new AT(constructor);
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        } else {
+            throw new RuntimeException("非Class对象无法获取Constructor!");
+        }
+    }
+
+    /**
+     * 获取匹配的构造函数，包括非public的构造函数
+     *
+     * @param parameterTypes 构造函数参数类型列表
+     * @return 根据对应构造函数创建的AT对象
+     */
+    public AT declaredConstructor(Class<?>... parameterTypes) {
+        if (this.object instanceof Class) {
+            try {
+                Class<?> clazz = (Class<?>) this.object;
+                Constructor<?> constructor = ClassMetadata.of(clazz).declaredConstructor(parameterTypes);
                 return new AT(constructor);
             } catch (NoSuchMethodException e) {
                 throw new RuntimeException(e.getMessage(), e);
@@ -175,6 +266,7 @@ public class AT {
      * @return 根据指定注解创建的AT对象
      */
     public AT annotation(Class<? extends Annotation> annotationClass) {
+        traceAnnotation(annotationClass);
         Annotation annObject = null;
         if (this.object instanceof AnnotatedElement) {
             AnnotatedElement annotatedElement = (AnnotatedElement) this.object;
@@ -207,9 +299,24 @@ public class AT {
         if (annotations == null || annotations.length == 0) {
             throw new RuntimeException(String.format("在[%s]上无法获取到Annotation!", this.object));
         }
+        if (tracer != null) {
+            for (Annotation annotation : annotations) {
+                traceAnnotation(annotation.annotationType());
+            }
+        }
         return new AT(Arrays.asList(annotations));
     }
 
+    /**
+     * 记录读取的注解类型
+     */
+    private static void traceAnnotation(Class<? extends Annotation> annotationClass) {
+        ATTracer t = tracer;
+        if (t != null) {
+            t.annotation(annotationClass);
+        }
+    }
+
     /**
      * 根据名称获取匹配的参数
      *
@@ -231,17 +338,39 @@ public class AT {
      */
     private String[] parameterNames() {
         Object methodOrConstructor = this.object;
-        if (methodOrConstructor instanceof Method) {
-            Method method = (Method) methodOrConstructor;
-            return PND.getParameterNames(method);
-        } else if (methodOrConstructor instanceof Constructor) {
-            Constructor<?> constructor = (Constructor<?>) methodOrConstructor;
-            return PND.getParameterNames(constructor);
+        if (methodOrConstructor instanceof Method || methodOrConstructor instanceof Constructor) {
+            Member executable = (Member) methodOrConstructor;
+            String[] names = ParameterNames.of(executable);
+            ATTracer t = tracer;
+            if (t != null) {
+                t.parameterNames(executable, names);
+            }
+            return names;
         } else {
             throw new RuntimeException("除Method和Constructor类外无法获取参数名称!");
         }
     }
 
+    /**
+     * 获取按参数名称调用的调用器
+     *
+     * @return 方法或构造函数的调用器
+     * @see Invoker
+     */
+    public Invoker invoker() {
+        Object methodOrConstructor = this.object;
+        if (methodOrConstructor instanceof Method || methodOrConstructor instanceof Constructor) {
+            Member executable = (Member) methodOrConstructor;
+            Invoker invoker = ClassMetadata.of(executable.getDeclaringClass()).invoker(executable);
+            ATTracer t = tracer;
+            if (t != null) {
+                t.parameterNames(executable, ParameterNames.of(executable));
+            }
+            return invoker;
+        }
+        throw new RuntimeException("除Method和Constructor类外无法按参数名称调用!");
+    }
+
     /**
      * 获取方法或是构造函数的注解
      *
@@ -271,7 +400,63 @@ public class AT {
         if (i > (annotations.length - 1)) {
             //数组下标越界自动抛异常，是否还需手工抛异常?
         }
-        return new AT(annotations[i]);
+        return new AT(annotations[i], (Member) this.object, i);
+    }
+
+    /**
+     * 获取类型上的注解(type-use annotation)
+     * 字段为字段类型，方法为返回类型，参数为参数类型，例如
+     * at(C.class).field("tags").type().typeArg(0).annotation(NotNull.class)
+     *
+     * @return 根据类型注解树创建的AT对象
+     * @see AnnotatedTypeNode
+     */
+    public AT type() {
+        Member member;
+        int i;
+        if (this.object instanceof Field || this.object instanceof Method || this.object instanceof Constructor) {
+            member = (Member) this.object;
+            i = 0;
+        } else if (this.source != null) {
+            member = this.source;
+            i = this.index + 1;
+        } else {
+            throw new RuntimeException("除Field、Method、Constructor和参数外无法获取类型!");
+        }
+        ATTracer t = tracer;
+        if (t != null) {
+            t.type(member);
+        }
+        return new AT(AnnotatedTypeNode.nodes(member)[i]);
+    }
+
+    /**
+     * 获取类型的泛型参数
+     *
+     * @param i 泛型参数索引位置
+     * @return 根据泛型参数的类型注解树创建的AT对象
+     */
+    public AT typeArg(int i) {
+        return new AT(typeNode().typeArg(i));
+    }
+
+    /**
+     * 获取数组类型的元素类型
+     *
+     * @return 根据元素的类型注解树创建的AT对象
+     */
+    public AT componentType() {
+        return new AT(typeNode().componentType());
+    }
+
+    /**
+     * 当前对象对应的类型注解树
+     */
+    private AnnotatedTypeNode typeNode() {
+        if (this.object instanceof AnnotatedTypeNode) {
+            return (AnnotatedTypeNode) this.object;
+        }
+        throw new RuntimeException("非类型对象，请先调用type()!");
     }
 
     /**
@@ -285,6 +470,14 @@ public class AT {
         return (T) this.object;
     }
 
+    /**
+     * 获取存放的对象
+     * (包内可见，get()会强制转换为Annotation)
+     */
+    Object object() {
+        return this.object;
+    }
+
     /**
      * 获取所有注解列表
      *
@@ -307,6 +500,7 @@ public class AT {
      */
     @SuppressWarnings("unchecked")
     public <T extends Annotation> T ai(Class<T> annotationClass) {
+        traceAnnotation(annotationClass);
         T t = null;
         if (this.object instanceof AnnotatedElement) {
             AnnotatedElement annotatedElement = (AnnotatedElement) this.object;
@@ -404,6 +598,10 @@ public class AT {
         if(this.object instanceof Class){
             Class clazz = (Class) this.object;
             Field[] fields = clazz.getDeclaredFields();
+            ATTracer t = tracer;
+            if (t != null) {
+                t.members(clazz, ElementType.FIELD);
+            }
             List<AT> ats = new ArrayList<>(fields.length);
             for(Field field : fields){
                 AT at = at(field);
@@ -418,4 +616,94 @@ public class AT {
     public List<AT> fields(){
         return fields(null);
     }
+
+    /**
+     * 获取Bean属性，注解由字段、getter方法和setter方法参数上的注解合并而成
+     *
+     * @param name 属性名称
+     * @return 根据对应属性创建的AT对象
+     * @see Property
+     */
+    public AT property(String name) {
+        if (this.object instanceof Class) {
+            Class<?> clazz = (Class<?>) this.object;
+            traceProperties(clazz);
+            Property property = ClassMetadata.of(clazz).properties().get(name);
+            if (property == null) {
+                throw new RuntimeException(String.format("在%s上无法找到属性%s!", clazz.getName(), name));
+            }
+            return new AT(property);
+        }
+        throw new RuntimeException("非Class对象无法获取Property!");
+    }
+
+    /**
+     * 获取所有满足条件的Bean属性
+     *
+     * @param filter 过滤条件，为null时返回所有属性
+     * @return 根据属性创建的AT对象列表
+     */
+    public List<AT> properties(Predicate<AT> filter) {
+        if (this.object instanceof Class) {
+            Class<?> clazz = (Class<?>) this.object;
+            traceProperties(clazz);
+            Collection<Property> properties = ClassMetadata.of(clazz).properties().values();
+            List<AT> ats = new ArrayList<>(properties.size());
+            for (Property property : properties) {
+                AT at = new AT(property);
+                if (filter == null || filter.test(at)) {
+                    ats.add(at);
+                }
+            }
+            return ats;
+        }
+        throw new RuntimeException("非Class对象无法获取Property!");
+    }
+
+    public List<AT> properties() {
+        return properties(null);
+    }
+
+    /**
+     * 获取Bean属性对象，用于读写属性值
+     *
+     * @return Bean属性
+     */
+    public Property asProperty() {
+        if (this.object instanceof Property) {
+            return (Property) this.object;
+        }
+        throw new RuntimeException("非Property对象，请先调用property(name)!");
+    }
+
+    /**
+     * 获取类的紧凑成员表，成员和参数以int句柄表示，需要时才创建反射对象
+     *
+     * @return 类的成员表
+     * @see ClassTable
+     */
+    public ClassTable table() {
+        if (this.object instanceof Class) {
+            Class<?> clazz = (Class<?>) this.object;
+            ATTracer t = tracer;
+            if (t != null) {
+                t.members(clazz, ElementType.FIELD);
+                t.members(clazz, ElementType.METHOD);
+                t.members(clazz, ElementType.CONSTRUCTOR);
+            }
+            return ClassTable.of(clazz);
+        }
+        throw new RuntimeException("非Class对象无法获取ClassTable!");
+    }
+
+    /**
+     * 属性表由类中声明的字段和方法构建
+     */
+    private static void traceProperties(Class<?> clazz) {
+        ATTracer t = tracer;
+        if (t != null) {
+            t.members(clazz, ElementType.FIELD);
+            t.members(clazz, ElementType.METHOD);
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package z.cube.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+
+/**
+ * AT跟踪器
+ * 通过{@link AT#trace(ATTracer)}开启后，记录AT访问过的类、字段、方法、构造函数、包、参数名称、类型注解和注解类型；
+ * <p/>
+ * [注] 回调可能来自多个线程，实现类需保证线程安全
+ */
+public interface ATTracer {
+
+    /**
+     * 访问了类、字段、方法、构造函数或包
+     *
+     * @param element 被访问的元素
+     */
+    void element(AnnotatedElement element);
+
+    /**
+     * 遍历了类中声明的所有成员
+     *
+     * @param clazz 被遍历的类
+     * @param kind  成员类型，FIELD、METHOD或CONSTRUCTOR
+     */
+    void members(Class<?> clazz, ElementType kind);
+
+    /**
+     * 获取了方法或构造函数的参数名称
+     *
+     * @param executable 方法或构造函数
+     * @param names      参数名称数组，可能为null
+     */
+    void parameterNames(Member executable, String[] names);
+
+    /**
+     * 获取了字段、方法或构造函数(含参数)上的类型注解树
+     *
+     * @param member 字段、方法或构造函数
+     * @see AT#type()
+     */
+    void type(Member member);
+
+    /**
+     * 读取了注解
+     *
+     * @param annotationType 注解类
+     */
+    void annotation(Class<? extends Annotation> annotationType);
+}
@@ -0,0 +1,74 @@
+package z.cube.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * 获取字段、方法和构造函数的MethodHandle，非public成员同样可以访问
+ * JDK8复制成员并setAccessible后unreflect获取，传入的成员对象不会被修改；
+ * JDK9及以上使用src/main/java9中的实现，通过privateLookupIn和VarHandle获取，不再需要setAccessible
+ */
+final class Accessors {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private Accessors() {
+    }
+
+    static MethodHandle method(Method method) throws IllegalAccessException {
+        return LOOKUP.unreflect(accessible(method));
+    }
+
+    static MethodHandle constructor(Constructor<?> constructor) throws IllegalAccessException {
+        return LOOKUP.unreflectConstructor(accessible(constructor));
+    }
+
+    static MethodHandle getter(Field field) throws IllegalAccessException {
+        return LOOKUP.unreflectGetter(accessible(field));
+    }
+
+    static MethodHandle setter(Field field) throws IllegalAccessException {
+        return LOOKUP.unreflectSetter(accessible(field));
+    }
+
+    /**
+     * 复制方法后设置accessible，不修改调用方持有的对象
+     */
+    private static Method accessible(Method method) {
+        for (Method m : method.getDeclaringClass().getDeclaredMethods()) {
+            if (m.equals(method)) {
+                m.setAccessible(true);
+                return m;
+            }
+        }
+        throw new RuntimeException(String.format("无法找到方法%s!", method));
+    }
+
+    /**
+     * 复制构造函数后设置accessible，不修改调用方持有的对象
+     */
+    private static Constructor<?> accessible(Constructor<?> constructor) {
+        try {
+            Constructor<?> c = constructor.getDeclaringClass().getDeclaredConstructor(constructor.getParameterTypes());
+            c.setAccessible(true);
+            return c;
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 复制字段后设置accessible，不修改调用方持有的对象
+     */
+    private static Field accessible(Field field) {
+        try {
+            Field f = field.getDeclaringClass().getDeclaredField(field.getName());
+            f.setAccessible(true);
+            return f;
+        } catch (NoSuchFieldException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package z.cube.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 类型上的注解树(type-use annotation)
+ * 例如 List&lt;@NotNull String&gt; 中String上的@NotNull；
+ * <p/>
+ * 每个字段、方法和构造函数的注解树只解析一次并缓存在声明类的元数据中，之后的导航和查找不再遍历AnnotatedType，也不再分配对象
+ */
+public final class AnnotatedTypeNode implements AnnotatedElement {
+    private static final AnnotatedTypeNode[] EMPTY = new AnnotatedTypeNode[0];
+
+    /**
+     * 对应的类型
+     */
+    private final Type type;
+    /**
+     * 类型上的注解
+     */
+    private final Annotation[] annotations;
+    /**
+     * 类型上的注解列表(不可修改)
+     */
+    private final List<Annotation> annotationList;
+    /**
+     * 泛型参数
+     */
+    private final AnnotatedTypeNode[] typeArgs;
+    /**
+     * 数组元素类型，非数组时为null
+     */
+    private final AnnotatedTypeNode componentType;
+    /**
+     * 通配符的边界，有下界时为下界，否则为上界
+     */
+    private final AnnotatedTypeNode[] bounds;
+    /**
+     * 当前类型或其嵌套类型上是否存在注解
+     */
+    private final boolean annotated;
+
+    private AnnotatedTypeNode(AnnotatedType annotatedType) {
+        this.type = annotatedType.getType();
+        this.annotations = annotatedType.getDeclaredAnnotations();
+        this.annotationList = Collections.unmodifiableList(Arrays.asList(annotations));
+        AnnotatedTypeNode[] args = EMPTY;
+        AnnotatedTypeNode component = null;
+        AnnotatedTypeNode[] bs = EMPTY;
+        if (annotatedType instanceof AnnotatedParameterizedType) {
+            args = of(((AnnotatedParameterizedType) annotatedType).getAnnotatedActualTypeArguments());
+        } else if (annotatedType instanceof AnnotatedArrayType) {
+            component = new AnnotatedTypeNode(((AnnotatedArrayType) annotatedType).getAnnotatedGenericComponentType());
+        } else if (annotatedType instanceof AnnotatedWildcardType) {
+            AnnotatedWildcardType wildcard = (AnnotatedWildcardType) annotatedType;
+            AnnotatedType[] lower = wildcard.getAnnotatedLowerBounds();
+            bs = of(lower.length > 0 ? lower : wildcard.getAnnotatedUpperBounds());
+        }
+        this.typeArgs = args;
+        this.componentType = component;
+        this.bounds = bs;
+        boolean a = annotations.length > 0 || (component != null && component.annotated);
+        for (AnnotatedTypeNode node : args) {
+            a |= node.annotated;
+        }
+        for (AnnotatedTypeNode node : bs) {
+            a |= node.annotated;
+        }
+        this.annotated = a;
+    }
+
+    private static AnnotatedTypeNode[] of(AnnotatedType[] annotatedTypes) {
+        if (annotatedTypes.length == 0) {
+            return EMPTY;
+        }
+        AnnotatedTypeNode[] nodes = new AnnotatedTypeNode[annotatedTypes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new AnnotatedTypeNode(annotatedTypes[i]);
+        }
+        return nodes;
+    }
+
+    /**
+     * 获取字段类型上的注解树
+     */
+    public static AnnotatedTypeNode of(Field field) {
+        return nodes(field)[0];
+    }
+
+    /**
+     * 获取方法返回类型上的注解树
+     */
+    public static AnnotatedTypeNode of(Method method) {
+        return nodes(method)[0];
+    }
+
+    /**
+     * 获取方法或构造函数参数类型上的注解树
+     *
+     * @param executable 方法或构造函数
+     * @param i          参数索引位置
+     */
+    public static AnnotatedTypeNode parameter(Executable executable, int i) {
+        AnnotatedTypeNode[] nodes = nodes(executable);
+        if (i < 0 || i >= nodes.length - 1) {
+            throw new RuntimeException(String.format("[%s]没有第%d个参数!", executable, i));
+        }
+        return nodes[i + 1];
+    }
+
+    /**
+     * 获取成员的注解树，缓存在声明类的{@link ClassMetadata}中
+     */
+    static AnnotatedTypeNode[] nodes(Member member) {
+        return ClassMetadata.of(member.getDeclaringClass()).typeNodes(member);
+    }
+
+    /**
+     * 解析成员上的注解树
+     * 字段：[字段类型]；方法和构造函数：[返回类型, 参数类型...]
+     */
+    static AnnotatedTypeNode[] build(Member member) {
+        if (member instanceof Field) {
+            return new AnnotatedTypeNode[]{new AnnotatedTypeNode(((Field) member).getAnnotatedType())};
+        }
+        if (member instanceof Executable) {
+            Executable executable = (Executable) member;
+            AnnotatedType[] parameterTypes = executable.getAnnotatedParameterTypes();
+            AnnotatedTypeNode[] nodes = new AnnotatedTypeNode[parameterTypes.length + 1];
+            nodes[0] = new AnnotatedTypeNode(executable.getAnnotatedReturnType());
+            for (int i = 0; i < parameterTypes.length; i++) {
+                nodes[i + 1] = new AnnotatedTypeNode(parameterTypes[i]);
+            }
+            return nodes;
+        }
+        throw new RuntimeException(String.format("无法获取[%s]的类型!", member));
+    }
+
+    /**
+     * 对应的类型
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * 获取泛型参数
+     *
+     * @param i 泛型参数索引位置
+     */
+    public AnnotatedTypeNode typeArg(int i) {
+        if (i < 0 || i >= typeArgs.length) {
+            throw new RuntimeException(String.format("类型[%s]没有第%d个泛型参数!", type, i));
+        }
+        return typeArgs[i];
+    }
+
+    /**
+     * 泛型参数个数
+     */
+    public int typeArgCount() {
+        return typeArgs.length;
+    }
+
+    /**
+     * 获取数组元素类型
+     */
+    public AnnotatedTypeNode componentType() {
+        if (componentType == null) {
+            throw new RuntimeException(String.format("类型[%s]不是数组!", type));
+        }
+        return componentType;
+    }
+
+    /**
+     * 获取通配符的边界，有下界(? super T)时为下界，否则为上界(? extends T)
+     *
+     * @param i 边界索引位置
+     */
+    public AnnotatedTypeNode bound(int i) {
+        if (i < 0 || i >= bounds.length) {
+            throw new RuntimeException(String.format("类型[%s]没有第%d个边界!", type, i));
+        }
+        return bounds[i];
+    }
+
+    /**
+     * 当前类型或其嵌套类型上是否存在注解，为false时可跳过整棵树
+     */
+    public boolean isAnnotated() {
+        return annotated;
+    }
+
+    /**
+     * 类型上的注解列表(不可修改，不会复制)
+     */
+    public List<Annotation> annotations() {
+        return annotationList;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Annotation> T getAnnotation(Class<T> annotationClass) {
+        for (Annotation annotation : annotations) {
+            if (annotationClass == annotation.annotationType()) {
+                return (T) annotation;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Annotation[] getAnnotations() {
+        return annotations.clone();
+    }
+
+    @Override
+    public Annotation[] getDeclaredAnnotations() {
+        return annotations.clone();
+    }
+
+    @Override
+    public String toString() {
+        return annotationList.isEmpty() ? type.getTypeName() : annotationList + " " + type.getTypeName();
+    }
+}
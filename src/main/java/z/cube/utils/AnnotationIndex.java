@@ -0,0 +1,470 @@
+package z.cube.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * 注解属性值索引
+ * 登记类时读取一次类、字段、方法、构造函数、参数以及包上所有注解的属性值，按(注解类型, 属性名称)建立有序索引，
+ * 查询时不再遍历成员或调用注解代理，例如
+ * <pre>
+ * AnnotationIndex index = new AnnotationIndex().register(Person.class).scan("z.cube.utils");
+ * index.equal(XmlAttribute.class, "name", "NAME");          // 字段
+ * index.range(Max.class, "value", null, 100);               // 参数(java.lang.reflect.Parameter)，value &lt; 100
+ * index.prefix(XmlRootElement.class, "name", "z.cube.");    // 类
+ * </pre>
+ * 属性值的比较方式：整数类型按long，浮点类型按double，Class按类名，数组属性的每个元素分别索引，注解类型的属性不索引；
+ * <p/>
+ * 索引可以在查询的同时继续登记新的类，已登记的类不会重复登记
+ */
+public final class AnnotationIndex {
+    /**
+     * 已登记的类
+     */
+    private final Set<Class<?>> classes = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+    /**
+     * 已登记的包
+     */
+    private final Set<Package> packages = Collections.newSetFromMap(new ConcurrentHashMap<Package, Boolean>());
+    /**
+     * 注解类型到所在元素的映射
+     */
+    private final ConcurrentMap<Class<? extends Annotation>, List<AnnotatedElement>> elements =
+            new ConcurrentHashMap<Class<? extends Annotation>, List<AnnotatedElement>>();
+    /**
+     * 注解类型 -&gt; 属性名称 -&gt; 属性值 -&gt; 所在元素
+     */
+    private final ConcurrentMap<Class<? extends Annotation>, ConcurrentMap<String, ConcurrentNavigableMap<Object,
+            List<AnnotatedElement>>>> values = new ConcurrentHashMap<Class<? extends Annotation>,
+            ConcurrentMap<String, ConcurrentNavigableMap<Object, List<AnnotatedElement>>>>();
+    /**
+     * 注解类型的属性方法
+     */
+    private final ConcurrentMap<Class<? extends Annotation>, Method[]> attributes =
+            new ConcurrentHashMap<Class<? extends Annotation>, Method[]>();
+
+    /**
+     * 登记类及其中声明的字段、方法、构造函数和参数，以及类所在的包
+     * 依赖缺失无法读取的类将被忽略，不写入索引，也不标记为已登记
+     *
+     * @param classes 需要登记的类
+     * @return 当前对象
+     */
+    public synchronized AnnotationIndex register(Class<?>... classes) {
+        for (Class<?> clazz : classes) {
+            if (this.classes.contains(clazz)) {
+                continue;
+            }
+            Package p = clazz.getPackage();
+            boolean newPackage = p != null && !packages.contains(p);
+            List<Entry> entries = new ArrayList<Entry>();
+            try {
+                if (newPackage) {
+                    read(p, entries);
+                }
+                read(clazz, entries);
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (!field.isSynthetic()) {
+                        read(field, entries);
+                    }
+                }
+                for (Method method : clazz.getDeclaredMethods()) {
+                    if (!method.isSynthetic() && !method.isBridge()) {
+                        read(method, entries);
+                        parameters(method, entries);
+                    }
+                }
+                for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+                    if (!constructor.isSynthetic()) {
+                        read(constructor, entries);
+                        parameters(constructor, entries);
+                    }
+                }
+            } catch (LinkageError e) {
+                //忽略依赖缺失的类，已读取的部分不写入索引
+                continue;
+            }
+            //全部读取成功后再写入索引
+            for (Entry entry : entries) {
+                index(entry);
+            }
+            if (newPackage) {
+                packages.add(p);
+            }
+            this.classes.add(clazz);
+        }
+        return this;
+    }
+
+    /**
+     * 扫描classpath中指定包及其子包下的所有类并登记，无法加载的类将被忽略
+     *
+     * @param packageName 包名，例如"z.cube.utils"
+     * @return 当前对象
+     */
+    public AnnotationIndex scan(String packageName) {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = AnnotationIndex.class.getClassLoader();
+        }
+        String path = packageName.replace('.', '/');
+        Set<String> names = new TreeSet<String>();
+        try {
+            Enumeration<URL> urls = loader.getResources(path);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                if ("file".equals(url.getProtocol())) {
+                    directory(new File(url.toURI()), packageName, names);
+                } else if ("jar".equals(url.getProtocol())) {
+                    jar((JarURLConnection) url.openConnection(), path, names);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("无法扫描包%s!", packageName), e);
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(String.format("无法扫描包%s!", packageName), e);
+        }
+        List<Class<?>> found = new ArrayList<Class<?>>(names.size());
+        for (String name : names) {
+            try {
+                found.add(Class.forName(name, false, loader));
+            } catch (ClassNotFoundException e) {
+                //忽略无法加载的类
+            } catch (LinkageError e) {
+                //忽略依赖缺失的类
+            }
+        }
+        //加载成功但成员依赖缺失的类由register忽略
+        return register(found.toArray(new Class<?>[found.size()]));
+    }
+
+    private static void directory(File dir, String packageName, Set<String> names) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                directory(file, packageName + '.' + name, names);
+            } else if (name.endsWith(".class")) {
+                className(packageName + '.' + name.substring(0, name.length() - 6), names);
+            }
+        }
+    }
+
+    private static void jar(JarURLConnection connection, String path, Set<String> names) throws IOException {
+        connection.setUseCaches(false);
+        JarFile jar = connection.getJarFile();
+        try {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith(path + '/') && name.endsWith(".class")) {
+                    className(name.substring(0, name.length() - 6).replace('/', '.'), names);
+                }
+            }
+        } finally {
+            jar.close();
+        }
+    }
+
+    private static void className(String name, Set<String> names) {
+        if (!name.endsWith("package-info") && !name.endsWith("module-info")) {
+            names.add(name);
+        }
+    }
+
+    /**
+     * 读取参数注解，局部类和匿名类构造函数的参数注解可能少于参数数量，按末尾对齐
+     * (此时Parameter.getDeclaredAnnotations()会数组越界)
+     */
+    private void parameters(Executable executable, List<Entry> entries) {
+        Parameter[] parameters = executable.getParameters();
+        Annotation[][] annotations = executable.getParameterAnnotations();
+        int offset = annotations.length - parameters.length;
+        for (int i = 0; i < parameters.length; i++) {
+            if (i + offset >= 0) {
+                read(parameters[i], annotations[i + offset], entries);
+            }
+        }
+    }
+
+    private void read(AnnotatedElement element, List<Entry> entries) {
+        read(element, element.getDeclaredAnnotations(), entries);
+    }
+
+    /**
+     * 读取元素上的所有注解及其属性值，暂存到entries中
+     */
+    private void read(AnnotatedElement element, Annotation[] declared, List<Entry> entries) {
+        for (Annotation annotation : declared) {
+            Class<? extends Annotation> type = annotation.annotationType();
+            entries.add(new Entry(type, null, null, element));
+            for (Method attribute : attributes(type)) {
+                Class<?> attributeType = attribute.getReturnType();
+                Class<?> componentType = attributeType.isArray() ? attributeType.getComponentType() : attributeType;
+                if (componentType.isAnnotation()) {
+                    continue;
+                }
+                Object value;
+                try {
+                    value = attribute.invoke(annotation);
+                } catch (Exception e) {
+                    throw new RuntimeException(String.format("无法读取%s的属性%s!", type.getName(),
+                            attribute.getName()), e);
+                }
+                if (attributeType.isArray()) {
+                    for (int i = 0, n = Array.getLength(value); i < n; i++) {
+                        entries.add(new Entry(type, attribute.getName(), key(Array.get(value, i), componentType),
+                                element));
+                    }
+                } else {
+                    entries.add(new Entry(type, attribute.getName(), key(value, componentType), element));
+                }
+            }
+        }
+    }
+
+    /**
+     * 将读取到的注解或属性值写入索引
+     */
+    private void index(Entry entry) {
+        if (entry.attribute == null) {
+            list(elements, entry.type).add(entry.element);
+            return;
+        }
+        ConcurrentMap<String, ConcurrentNavigableMap<Object, List<AnnotatedElement>>> byName = values.get(entry.type);
+        if (byName == null) {
+            byName = new ConcurrentHashMap<String, ConcurrentNavigableMap<Object, List<AnnotatedElement>>>();
+            values.put(entry.type, byName);
+        }
+        ConcurrentNavigableMap<Object, List<AnnotatedElement>> index = byName.get(entry.attribute);
+        if (index == null) {
+            index = new ConcurrentSkipListMap<Object, List<AnnotatedElement>>();
+            byName.put(entry.attribute, index);
+        }
+        list(index, entry.key).add(entry.element);
+    }
+
+    private static <K> List<AnnotatedElement> list(Map<K, List<AnnotatedElement>> map, K key) {
+        List<AnnotatedElement> list = map.get(key);
+        if (list == null) {
+            list = new CopyOnWriteArrayList<AnnotatedElement>();
+            map.put(key, list);
+        }
+        return list;
+    }
+
+    /**
+     * 注解的属性方法，非public的注解只登记是否存在，不读取属性值
+     */
+    private Method[] attributes(Class<? extends Annotation> type) {
+        Method[] methods = attributes.get(type);
+        if (methods == null) {
+            methods = Modifier.isPublic(type.getModifiers()) ? type.getDeclaredMethods() : new Method[0];
+            attributes.put(type, methods);
+        }
+        return methods;
+    }
+
+    /**
+     * 将属性值或查询值转为索引中可比较的键，整数属性的小数查询值向上取整
+     */
+    private static Object key(Object value, Class<?> attributeType) {
+        Class<?> t = Converters.wrap(attributeType);
+        if (t == Long.class || t == Integer.class || t == Short.class || t == Byte.class) {
+            if (value instanceof BigDecimal) {
+                return ((BigDecimal) value).setScale(0, RoundingMode.CEILING).longValue();
+            }
+            if (value instanceof Double || value instanceof Float) {
+                return (long) Math.ceil(((Number) value).doubleValue());
+            }
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+        } else if (t == Double.class || t == Float.class) {
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+        } else if (t == Class.class) {
+            if (value instanceof Class) {
+                return ((Class<?>) value).getName();
+            }
+            if (value instanceof String) {
+                return value;
+            }
+        } else if (t.isInstance(value)) {
+            return value;
+        }
+        throw new RuntimeException(String.format("属性类型为%s，无法使用%s查询!", attributeType.getName(), value));
+    }
+
+    /**
+     * 获取属性值索引，注解未出现过时返回null
+     */
+    private ConcurrentNavigableMap<Object, List<AnnotatedElement>> lookup(Class<? extends Annotation> type,
+                                                                          String attribute) {
+        ConcurrentMap<String, ConcurrentNavigableMap<Object, List<AnnotatedElement>>> byName = values.get(type);
+        return byName == null ? null : byName.get(attribute);
+    }
+
+    /**
+     * 获取可查询的属性类型，数组属性为元素类型；属性不存在或为注解类型时报错
+     */
+    private static Class<?> attributeType(Class<? extends Annotation> type, String attribute) {
+        Class<?> t;
+        try {
+            t = type.getDeclaredMethod(attribute).getReturnType();
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(String.format("%s不存在属性%s!", type.getName(), attribute), e);
+        }
+        t = t.isArray() ? t.getComponentType() : t;
+        if (t.isAnnotation()) {
+            throw new RuntimeException(String.format("%s的属性%s为注解类型，无法查询!", type.getName(), attribute));
+        }
+        return t;
+    }
+
+    private static List<AnnotatedElement> collect(Collection<List<AnnotatedElement>> lists) {
+        Set<AnnotatedElement> result = new LinkedHashSet<AnnotatedElement>();
+        for (List<AnnotatedElement> list : lists) {
+            result.addAll(list);
+        }
+        return new ArrayList<AnnotatedElement>(result);
+    }
+
+    /**
+     * 查询注解属性值等于指定值的元素
+     *
+     * @param type      注解类型
+     * @param attribute 属性名称
+     * @param value     属性值，数组属性包含该值即匹配
+     * @return 类、字段、方法、构造函数、参数(java.lang.reflect.Parameter)或包
+     */
+    public List<AnnotatedElement> equal(Class<? extends Annotation> type, String attribute, Object value) {
+        Object key = key(value, attributeType(type, attribute));
+        if (key instanceof Long && ((Long) key).doubleValue() != ((Number) value).doubleValue()) {
+            //整数属性不会等于小数
+            return new ArrayList<AnnotatedElement>(0);
+        }
+        ConcurrentNavigableMap<Object, List<AnnotatedElement>> index = lookup(type, attribute);
+        List<AnnotatedElement> list = index == null ? null : index.get(key);
+        return list == null ? new ArrayList<AnnotatedElement>(0) : collect(Collections.singleton(list));
+    }
+
+    /**
+     * 查询注解属性值位于[from, to)之间的元素
+     *
+     * @param type      注解类型
+     * @param attribute 属性名称
+     * @param from      下限(包含)，为null时不限；整数属性的小数边界向上取整
+     * @param to        上限(不包含)，为null时不限；整数属性的小数边界向上取整
+     * @return 按属性值排序的元素
+     */
+    public List<AnnotatedElement> range(Class<? extends Annotation> type, String attribute, Object from, Object to) {
+        Class<?> attributeType = attributeType(type, attribute);
+        Object fromKey = from == null ? null : key(from, attributeType);
+        Object toKey = to == null ? null : key(to, attributeType);
+        ConcurrentNavigableMap<Object, List<AnnotatedElement>> sub = lookup(type, attribute);
+        if (sub == null) {
+            return new ArrayList<AnnotatedElement>(0);
+        }
+        if (fromKey != null) {
+            sub = sub.tailMap(fromKey, true);
+        }
+        if (toKey != null) {
+            sub = sub.headMap(toKey, false);
+        }
+        return collect(sub.values());
+    }
+
+    /**
+     * 查询字符串(或Class类名)属性值以指定前缀开头的元素
+     *
+     * @param type      注解类型
+     * @param attribute 属性名称
+     * @param prefix    前缀
+     * @return 按属性值排序的元素
+     */
+    public List<AnnotatedElement> prefix(Class<? extends Annotation> type, String attribute, String prefix) {
+        Class<?> attributeType = attributeType(type, attribute);
+        if (attributeType != String.class && attributeType != Class.class) {
+            throw new RuntimeException(String.format("%s的属性%s不是字符串，无法按前缀查询!", type.getName(), attribute));
+        }
+        ConcurrentNavigableMap<Object, List<AnnotatedElement>> index = lookup(type, attribute);
+        if (index == null) {
+            return new ArrayList<AnnotatedElement>(0);
+        }
+        return collect(index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+    }
+
+    /**
+     * 获取存在指定注解的元素
+     *
+     * @param type 注解类型
+     * @return 按登记顺序排列的元素
+     */
+    public List<AnnotatedElement> annotated(Class<? extends Annotation> type) {
+        List<AnnotatedElement> list = elements.get(type);
+        return list == null ? new ArrayList<AnnotatedElement>(0) : new ArrayList<AnnotatedElement>(list);
+    }
+
+    /**
+     * 是否已登记该类
+     */
+    public boolean isRegistered(Class<?> clazz) {
+        return classes.contains(clazz);
+    }
+
+    /**
+     * 已登记的类数量
+     */
+    public int size() {
+        return classes.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AnnotationIndex: %d个类，%d种注解", classes.size(), elements.size());
+    }
+
+    /**
+     * 读取到的注解(attribute为null)或注解属性值
+     */
+    private static final class Entry {
+        private final Class<? extends Annotation> type;
+        private final String attribute;
+        private final Object key;
+        private final AnnotatedElement element;
+
+        Entry(Class<? extends Annotation> type, String attribute, Object key, AnnotatedElement element) {
+            this.type = type;
+            this.attribute = attribute;
+            this.key = key;
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package z.cube.utils;
+
+/**
+ * 参数转换器，配合{@link ConvertWith}使用
+ */
+public interface ArgumentConverter {
+    /**
+     * 转换参数值
+     *
+     * @param value 传入的参数值，可能为null
+     * @param type  参数类型
+     * @return 转换后的值
+     */
+    Object convert(Object value, Class<?> type);
+}
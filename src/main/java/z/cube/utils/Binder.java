@@ -0,0 +1,482 @@
+package z.cube.utils;
+
+import javax.xml.bind.annotation.*;
+import javax.xml.stream.*;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static z.cube.utils.AT.at;
+
+/**
+ * 基于注解的XML属性绑定
+ * 将类上的@XmlRootElement、@XmlAccessorType、@XmlAttribute、@XmlTransient注解编译为"名称-访问器"的扁平计划，
+ * 每个类只编译一次，之后读写对象不再查找注解；
+ * <p/>
+ * 所有绑定的成员都映射为XML属性(或键值对)，只支持String、基本类型及其包装类、BigDecimal、BigInteger和枚举，
+ * 未标注@XmlAttribute且类型不支持的成员会被忽略；
+ * 父类中声明的成员同样绑定，按各自类上的访问类型收集，父类的属性在前，子类覆盖的属性只绑定一次
+ * <pre>
+ * Binder&lt;Person&gt; binder = Binder.of(Person.class);
+ * String xml = binder.toXml(person);        // &lt;z.cube.utils.Person NAME="..." age="..."/&gt;
+ * Person p = binder.fromXml(xml);
+ * binder.writeAll(persons, "persons", writer);
+ * </pre>
+ */
+public final class Binder<T> {
+    private static final ClassValue<Binder<?>> CACHE = new ClassValue<Binder<?>>() {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected Binder<?> computeValue(Class<?> type) {
+            return new Binder(type);
+        }
+    };
+    private static final XMLOutputFactory OUTPUT = XMLOutputFactory.newInstance();
+    private static final XMLInputFactory INPUT = XMLInputFactory.newInstance();
+    private static final String DEFAULT = "##default";
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    static {
+        INPUT.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    }
+
+    private final Class<T> clazz;
+    /**
+     * 根元素名称
+     */
+    private final String name;
+    /**
+     * 属性名称
+     */
+    private final String[] names;
+    /**
+     * 属性类型
+     */
+    private final Class<?>[] types;
+    /**
+     * 取值访问器，类型为(Object)Object
+     */
+    private final MethodHandle[] getters;
+    /**
+     * 赋值访问器，类型为(Object,Object)void，只读属性为null
+     */
+    private final MethodHandle[] setters;
+    /**
+     * 属性名称到索引位置
+     */
+    private final Map<String, Integer> index;
+    /**
+     * 无参构造函数，类型为()Object
+     */
+    private final MethodHandle constructor;
+
+    private Binder(Class<T> clazz) {
+        this.clazz = clazz;
+        this.name = rootName(clazz);
+        List<Slot> slots = slots(clazz);
+        int size = slots.size();
+        this.names = new String[size];
+        this.types = new Class<?>[size];
+        this.getters = new MethodHandle[size];
+        this.setters = new MethodHandle[size];
+        this.index = new HashMap<String, Integer>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Slot slot = slots.get(i);
+            names[i] = slot.name;
+            types[i] = slot.type;
+            getters[i] = slot.getter;
+            setters[i] = slot.setter;
+            if (index.put(slot.name, i) != null) {
+                throw new RuntimeException(String.format("%s中存在重复的属性名称%s!", clazz.getName(), slot.name));
+            }
+        }
+        this.constructor = constructor(clazz);
+    }
+
+    /**
+     * 获取类的绑定计划，每个类只编译一次
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Binder<T> of(Class<T> clazz) {
+        return (Binder<T>) CACHE.get(clazz);
+    }
+
+    /**
+     * 根元素名称
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * 按绑定顺序排列的属性名称
+     */
+    public List<String> attributeNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * 将对象写为一个空元素，属性值为null时不输出
+     */
+    public void write(T object, XMLStreamWriter writer) {
+        try {
+            writer.writeEmptyElement(name);
+            for (int i = 0; i < names.length; i++) {
+                String value = Converters.toString(get(i, object));
+                if (value != null) {
+                    writer.writeAttribute(names[i], value);
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 将对象转为XML字符串
+     */
+    public String toXml(T object) {
+        StringWriter out = new StringWriter(64);
+        try {
+            XMLStreamWriter writer = OUTPUT.createXMLStreamWriter(out);
+            write(object, writer);
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * 批量写出，所有对象放在wrapper元素中
+     *
+     * @param objects 对象集合
+     * @param wrapper 外层元素名称
+     * @param out     输出
+     */
+    public void writeAll(Iterable<? extends T> objects, String wrapper, Writer out) {
+        try {
+            XMLStreamWriter writer = OUTPUT.createXMLStreamWriter(out);
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement(wrapper);
+            for (T object : objects) {
+                write(object, writer);
+            }
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从当前元素的属性创建对象
+     *
+     * @param reader 当前事件必须为START_ELEMENT
+     */
+    public T read(XMLStreamReader reader) {
+        if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            throw new RuntimeException("当前位置不是元素的开始!");
+        }
+        T object = newInstance();
+        for (int i = 0, n = reader.getAttributeCount(); i < n; i++) {
+            Integer slot = index.get(reader.getAttributeLocalName(i));
+            if (slot != null) {
+                set(slot, object, reader.getAttributeValue(i));
+            }
+        }
+        return object;
+    }
+
+    /**
+     * 从XML字符串创建对象，根元素名称需与{@link #name()}一致
+     */
+    public T fromXml(String xml) {
+        try {
+            XMLStreamReader reader = INPUT.createXMLStreamReader(new StringReader(xml));
+            try {
+                reader.nextTag();
+                if (!name.equals(reader.getLocalName())) {
+                    throw new RuntimeException(String.format("根元素%s与%s的根元素名称%s不一致!",
+                            reader.getLocalName(), clazz.getName(), name));
+                }
+                return read(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 批量读取，逐个处理与根元素名称相同的元素，不会把所有对象放入内存
+     *
+     * @param in       输入
+     * @param consumer 对象处理
+     */
+    public void readAll(Reader in, Consumer<? super T> consumer) {
+        try {
+            XMLStreamReader reader = INPUT.createXMLStreamReader(in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && name.equals(reader.getLocalName())) {
+                        consumer.accept(read(reader));
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 批量读取为列表
+     */
+    public List<T> readAll(Reader in) {
+        final List<T> objects = new ArrayList<T>();
+        readAll(in, new Consumer<T>() {
+            @Override
+            public void accept(T t) {
+                objects.add(t);
+            }
+        });
+        return objects;
+    }
+
+    /**
+     * 转为键值对，属性值为null时不输出
+     */
+    public Map<String, String> toMap(T object) {
+        Map<String, String> map = new LinkedHashMap<String, String>(names.length * 2);
+        for (int i = 0; i < names.length; i++) {
+            String value = Converters.toString(get(i, object));
+            if (value != null) {
+                map.put(names[i], value);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 从键值对创建对象，未绑定的键会被忽略
+     */
+    public T fromMap(Map<String, String> map) {
+        T object = newInstance();
+        for (int i = 0; i < names.length; i++) {
+            String value = map.get(names[i]);
+            if (value != null) {
+                set(i, object, value);
+            }
+        }
+        return object;
+    }
+
+    private Object get(int i, Object object) {
+        try {
+            return (Object) getters[i].invokeExact(object);
+        } catch (Throwable e) {
+            throw new RuntimeException(String.format("无法读取%s的属性%s!", clazz.getName(), names[i]), e);
+        }
+    }
+
+    private void set(int i, Object object, String value) {
+        MethodHandle setter = setters[i];
+        if (setter == null) {
+            return;
+        }
+        Object v = Converters.fromString(value, types[i]);
+        try {
+            setter.invokeExact(object, v);
+        } catch (Throwable e) {
+            throw new RuntimeException(String.format("无法设置%s的属性%s!", clazz.getName(), names[i]), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newInstance() {
+        try {
+            return (T) (Object) constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new RuntimeException(String.format("无法创建%s的实例!", clazz.getName()), e);
+        }
+    }
+
+    /**
+     * 根元素名称，默认为首字母小写的类名
+     */
+    private static String rootName(Class<?> clazz) {
+        XmlRootElement root = at(clazz).annotation(XmlRootElement.class).get();
+        if (root != null && !DEFAULT.equals(root.name())) {
+            return root.name();
+        }
+        return Property.decapitalize(clazz.getSimpleName());
+    }
+
+    /**
+     * 访问类型，依次查找类和包上的@XmlAccessorType，默认为PUBLIC_MEMBER
+     */
+    private static XmlAccessType accessType(Class<?> clazz) {
+        XmlAccessorType accessor = at(clazz).annotation(XmlAccessorType.class).get();
+        if (accessor == null && clazz.getPackage() != null) {
+            accessor = at(clazz).package_().annotation(XmlAccessorType.class).get();
+        }
+        return accessor == null ? XmlAccessType.PUBLIC_MEMBER : accessor.value();
+    }
+
+    /**
+     * 收集类及其父类中需要绑定的字段和属性，父类的在前，子类中已绑定的名称不再绑定父类的成员
+     */
+    private static List<Slot> slots(Class<?> clazz) {
+        List<Slot> slots = new ArrayList<Slot>();
+        Set<String> bound = new HashSet<String>();
+        for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+            List<Slot> declared = new ArrayList<Slot>();
+            for (Slot slot : declaredSlots(c)) {
+                if (!bound.contains(slot.name)) {
+                    declared.add(slot);
+                }
+            }
+            for (Slot slot : declared) {
+                bound.add(slot.name);
+            }
+            slots.addAll(0, declared);
+        }
+        return slots;
+    }
+
+    /**
+     * 按访问类型收集类中声明的需要绑定的字段和属性
+     */
+    private static List<Slot> declaredSlots(Class<?> clazz) {
+        XmlAccessType accessType = accessType(clazz);
+        List<Slot> slots = new ArrayList<Slot>();
+        for (AT at : at(clazz).fields()) {
+            Field field = (Field) at.object();
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || at.has(XmlTransient.class)) {
+                continue;
+            }
+            XmlAttribute attribute = at.annotation(XmlAttribute.class).get();
+            boolean bound = attribute != null || at.has(XmlElement.class)
+                    || (accessType == XmlAccessType.FIELD && !Modifier.isTransient(modifiers))
+                    || (accessType == XmlAccessType.PUBLIC_MEMBER && Modifier.isPublic(modifiers));
+            if (!bound || !supported(clazz, field.getName(), field.getType(), attribute)) {
+                continue;
+            }
+            try {
+                MethodHandle setter = Modifier.isFinal(modifiers) ? null
+                        : Accessors.setter(field).asType(SETTER);
+                slots.add(new Slot(attributeName(attribute, field.getName()), field.getType(),
+                        Accessors.getter(field).asType(GETTER), setter));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+        if (accessType == XmlAccessType.PROPERTY || accessType == XmlAccessType.PUBLIC_MEMBER
+                || accessType == XmlAccessType.NONE) {
+            properties(clazz, accessType, slots);
+        }
+        return slots;
+    }
+
+    /**
+     * 收集getter/setter属性，JAXB只读取getter和setter方法上的注解
+     */
+    private static void properties(Class<?> clazz, XmlAccessType accessType, List<Slot> slots) {
+        for (Property property : ClassMetadata.of(clazz).properties().values()) {
+            Method getter = property.getGetter();
+            Method setter = property.getSetter();
+            if (getter == null) {
+                continue;
+            }
+            AT getterAt = at(getter);
+            AT setterAt = setter == null ? null : at(setter);
+            if (getterAt.has(XmlTransient.class) || (setterAt != null && setterAt.has(XmlTransient.class))) {
+                continue;
+            }
+            XmlAttribute attribute = getterAt.annotation(XmlAttribute.class).get();
+            if (attribute == null && setterAt != null) {
+                attribute = setterAt.annotation(XmlAttribute.class).get();
+            }
+            boolean annotated = attribute != null || getterAt.has(XmlElement.class)
+                    || (setterAt != null && setterAt.has(XmlElement.class));
+            boolean bound = annotated || (setter != null && (accessType == XmlAccessType.PROPERTY
+                    || (accessType == XmlAccessType.PUBLIC_MEMBER && Modifier.isPublic(getter.getModifiers())
+                    && Modifier.isPublic(setter.getModifiers()))));
+            if (!bound || !supported(clazz, property.getName(), property.getType(), attribute)) {
+                continue;
+            }
+            try {
+                MethodHandle set = setter == null ? null : Accessors.method(setter).asType(SETTER);
+                slots.add(new Slot(attributeName(attribute, property.getName()), property.getType(),
+                        Accessors.method(getter).asType(GETTER), set));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 类型是否支持，标注了@XmlAttribute但类型不支持时抛出异常
+     */
+    private static boolean supported(Class<?> clazz, String member, Class<?> type, XmlAttribute attribute) {
+        if (Converters.supports(type)) {
+            return true;
+        }
+        if (attribute != null) {
+            throw new RuntimeException(String.format("%s.%s的类型%s无法绑定为属性!", clazz.getName(), member,
+                    type.getName()));
+        }
+        return false;
+    }
+
+    private static String attributeName(XmlAttribute attribute, String member) {
+        return attribute == null || DEFAULT.equals(attribute.name()) ? member : attribute.name();
+    }
+
+    private static MethodHandle constructor(Class<?> clazz) {
+        try {
+            Constructor<?> c = clazz.getDeclaredConstructor();
+            return Accessors.constructor(c).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException e) {
+            //只用于写出时可以没有无参构造函数
+            return MethodHandles.throwException(Object.class, RuntimeException.class).bindTo(
+                    new RuntimeException(String.format("%s没有无参构造函数!", clazz.getName())));
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 编译期间使用的绑定项
+     */
+    private static final class Slot {
+        final String name;
+        final Class<?> type;
+        final MethodHandle getter;
+        final MethodHandle setter;
+
+        Slot(String name, Class<?> type, MethodHandle getter, MethodHandle setter) {
+            this.name = name;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+}
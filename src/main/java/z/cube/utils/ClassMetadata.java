@@ -0,0 +1,195 @@
+package z.cube.utils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 类的元数据缓存
+ * 缓存按名称和参数类型查找到的字段、方法和构造函数、Bean属性表、类型注解树、参数名称以及按名称调用的调用器，避免每次at(...)调用都重新反射查找
+ */
+final class ClassMetadata {
+    /**
+     * 使用ClassValue缓存，元数据随类一起回收，不会阻止类加载器被卸载
+     */
+    private static final ClassValue<ClassMetadata> CACHE = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    private final Class<?> clazz;
+    private final ConcurrentMap<String, Field> fields = new ConcurrentHashMap<String, Field>();
+    private final ConcurrentMap<Signature, Method> methods = new ConcurrentHashMap<Signature, Method>();
+    private final ConcurrentMap<Signature, Constructor<?>> constructors =
+            new ConcurrentHashMap<Signature, Constructor<?>>();
+    private final ConcurrentMap<Signature, Constructor<?>> declaredConstructors =
+            new ConcurrentHashMap<Signature, Constructor<?>>();
+    private final ConcurrentMap<Member, Invoker> invokers = new ConcurrentHashMap<Member, Invoker>();
+    private final ConcurrentMap<Member, AnnotatedTypeNode[]> typeNodes =
+            new ConcurrentHashMap<Member, AnnotatedTypeNode[]>();
+    private final ConcurrentMap<Member, String[]> parameterNames = new ConcurrentHashMap<Member, String[]>();
+
+    /**
+     * 属性表，首次使用时构建
+     */
+    private volatile Map<String, Property> properties;
+
+    private ClassMetadata(Class<?> clazz) {
+        this.clazz = clazz;
+    }
+
+    /**
+     * 获取类的元数据
+     */
+    static ClassMetadata of(Class<?> clazz) {
+        return CACHE.get(clazz);
+    }
+
+    /**
+     * 获取类中声明的字段
+     */
+    Field field(String name) throws NoSuchFieldException {
+        Field field = fields.get(name);
+        if (field == null) {
+            field = clazz.getDeclaredField(name);
+            fields.putIfAbsent(name, field);
+        }
+        return field;
+    }
+
+    /**
+     * 获取类中声明的方法
+     */
+    Method method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Signature signature = new Signature(name, parameterTypes);
+        Method method = methods.get(signature);
+        if (method == null) {
+            method = clazz.getDeclaredMethod(name, parameterTypes);
+            methods.putIfAbsent(signature, method);
+        }
+        return method;
+    }
+
+    /**
+     * 获取类中的public构造函数
+     */
+    Constructor<?> constructor(Class<?>... parameterTypes) throws NoSuchMethodException {
+        Signature signature = new Signature(null, parameterTypes);
+        Constructor<?> constructor = constructors.get(signature);
+        if (constructor == null) {
+            constructor = clazz.getConstructor(parameterTypes);
+            constructors.putIfAbsent(signature, constructor);
+        }
+        return constructor;
+    }
+
+    /**
+     * 获取类中声明的构造函数，包括非public的
+     */
+    Constructor<?> declaredConstructor(Class<?>... parameterTypes) throws NoSuchMethodException {
+        Signature signature = new Signature(null, parameterTypes);
+        Constructor<?> constructor = declaredConstructors.get(signature);
+        if (constructor == null) {
+            constructor = clazz.getDeclaredConstructor(parameterTypes);
+            declaredConstructors.putIfAbsent(signature, constructor);
+        }
+        return constructor;
+    }
+
+    /**
+     * 获取方法或构造函数的调用器，首次使用时编译
+     */
+    Invoker invoker(Member executable) {
+        Invoker invoker = invokers.get(executable);
+        if (invoker == null) {
+            invoker = Invoker.compile(executable);
+            Invoker previous = invokers.putIfAbsent(executable, invoker);
+            if (previous != null) {
+                invoker = previous;
+            }
+        }
+        return invoker;
+    }
+
+    /**
+     * 获取类中声明的字段、方法或构造函数的类型注解树，首次使用时解析
+     */
+    AnnotatedTypeNode[] typeNodes(Member member) {
+        AnnotatedTypeNode[] nodes = typeNodes.get(member);
+        if (nodes == null) {
+            nodes = AnnotatedTypeNode.build(member);
+            AnnotatedTypeNode[] previous = typeNodes.putIfAbsent(member, nodes);
+            if (previous != null) {
+                nodes = previous;
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * 获取类中声明的方法或构造函数的参数名称(共享对象，不能修改)，无法获取时返回{@link ParameterNames#NONE}
+     */
+    String[] parameterNames(Member executable) {
+        String[] names = parameterNames.get(executable);
+        if (names == null) {
+            names = ParameterNames.discover(executable);
+            String[] previous = parameterNames.putIfAbsent(executable, names);
+            if (previous != null) {
+                names = previous;
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 获取类中声明的Bean属性表(不可修改)
+     */
+    Map<String, Property> properties() {
+        Map<String, Property> p = properties;
+        if (p == null) {
+            p = Property.of(clazz);
+            properties = p;
+        }
+        return p;
+    }
+
+    /**
+     * 方法名称和参数类型构成的缓存键
+     */
+    private static final class Signature {
+        private final String name;
+        private final Class<?>[] parameterTypes;
+        private final int hash;
+
+        Signature(String name, Class<?>[] parameterTypes) {
+            this.name = name;
+            this.parameterTypes = parameterTypes == null ? new Class<?>[0] : parameterTypes.clone();
+            this.hash = (name == null ? 0 : name.hashCode()) * 31 + Arrays.hashCode(this.parameterTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+            Signature that = (Signature) o;
+            return hash == that.hash && (name == null ? that.name == null : name.equals(that.name))
+                    && Arrays.equals(parameterTypes, that.parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
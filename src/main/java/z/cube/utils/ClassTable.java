@@ -0,0 +1,543 @@
+package z.cube.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑的类成员表
+ * 类中声明的字段、方法、构造函数及其参数以int句柄表示，名称、修饰符、类型编号和注解类型编号按列存放在数组中，
+ * 不保留Field、Method、Constructor等反射对象，只有调用toField(h)、at(h)等方法时才临时创建；
+ * 类型编号只在表内有效，用到的类型只由表本身持有，表随类一起回收；
+ * <p/>
+ * 句柄的编排：[0, size())为成员，依次为字段、方法和构造函数；[size(), size() + parameterCount())为参数，
+ * 按所属成员的顺序排列，例如
+ * <pre>
+ * ClassTable table = at(Person.class).table();
+ * int m = table.method("setName", String.class);
+ * int p = table.parameter(m, 0);
+ * table.has(p, NotNull.class);          // 不需要反射
+ * NotNull nn = table.annotation(p, NotNull.class);
+ * </pre>
+ * 每个类的表只构建一次，不包含合成的成员和桥接方法
+ */
+public final class ClassTable {
+    private static final ClassValue<ClassTable> CACHE = new ClassValue<ClassTable>() {
+        @Override
+        protected ClassTable computeValue(Class<?> type) {
+            return new ClassTable(type);
+        }
+    };
+    private static final int[] EMPTY = new int[0];
+
+    private final Class<?> clazz;
+    private final int fieldCount;
+    private final int methodCount;
+    /**
+     * 成员数量
+     */
+    private final int size;
+    /**
+     * 成员名称，构造函数为"&lt;init&gt;"
+     */
+    private final String[] names;
+    private final int[] modifiers;
+    /**
+     * 元素的类型编号：字段类型、方法返回类型、构造函数所属类或参数类型
+     */
+    private final int[] types;
+    /**
+     * 成员h的参数为[parameterStart[h], parameterStart[h + 1])，相对于size()
+     */
+    private final int[] parameterStart;
+    /**
+     * 元素e的注解类型编号为annotationTypes[annotationStart[e], annotationStart[e + 1])
+     */
+    private final int[] annotationStart;
+    private final int[] annotationTypes;
+    /**
+     * 类上的注解类型编号
+     */
+    private final int[] classAnnotationTypes;
+    /**
+     * 编号对应的类型
+     */
+    private final Class<?>[] typeTable;
+    /**
+     * 类型到编号的映射，按引用比较
+     */
+    private final Map<Class<?>, Integer> typeIds;
+
+    private ClassTable(Class<?> clazz) {
+        this.clazz = clazz;
+        List<Field> fields = new ArrayList<Field>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (!field.isSynthetic()) {
+                fields.add(field);
+            }
+        }
+        List<Method> methods = new ArrayList<Method>();
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (!method.isSynthetic() && !method.isBridge()) {
+                methods.add(method);
+            }
+        }
+        List<Constructor<?>> constructors = new ArrayList<Constructor<?>>();
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            if (!constructor.isSynthetic()) {
+                constructors.add(constructor);
+            }
+        }
+        this.fieldCount = fields.size();
+        this.methodCount = methods.size();
+        this.size = fieldCount + methodCount + constructors.size();
+        this.names = new String[size];
+        this.modifiers = new int[size];
+        this.parameterStart = new int[size + 1];
+
+        List<Class<?>[]> parameterTypes = new ArrayList<Class<?>[]>(size);
+        int parameters = 0;
+        for (int h = 0; h < size; h++) {
+            Class<?>[] p = h < fieldCount ? new Class<?>[0] : h < fieldCount + methodCount
+                    ? methods.get(h - fieldCount).getParameterTypes()
+                    : constructors.get(h - fieldCount - methodCount).getParameterTypes();
+            parameterTypes.add(p);
+            parameterStart[h] = parameters;
+            parameters += p.length;
+        }
+        parameterStart[size] = parameters;
+
+        this.types = new int[size + parameters];
+        this.annotationStart = new int[size + parameters + 1];
+        TypeIds ids = new TypeIds();
+        IntList annotations = new IntList();
+        Annotation[][][] parameterAnnotations = new Annotation[size][][];
+        for (int h = 0; h < size; h++) {
+            Annotation[] declared;
+            if (h < fieldCount) {
+                Field field = fields.get(h);
+                names[h] = field.getName();
+                modifiers[h] = field.getModifiers();
+                types[h] = ids.id(field.getType());
+                declared = field.getDeclaredAnnotations();
+            } else if (h < fieldCount + methodCount) {
+                Method method = methods.get(h - fieldCount);
+                names[h] = method.getName();
+                modifiers[h] = method.getModifiers();
+                types[h] = ids.id(method.getReturnType());
+                declared = method.getDeclaredAnnotations();
+                parameterAnnotations[h] = method.getParameterAnnotations();
+            } else {
+                Constructor<?> constructor = constructors.get(h - fieldCount - methodCount);
+                names[h] = "<init>";
+                modifiers[h] = constructor.getModifiers();
+                types[h] = ids.id(clazz);
+                declared = constructor.getDeclaredAnnotations();
+                parameterAnnotations[h] = constructor.getParameterAnnotations();
+            }
+            annotationStart[h] = annotations.size();
+            annotations.addTypes(declared, ids);
+        }
+        for (int h = 0; h < size; h++) {
+            Class<?>[] p = parameterTypes.get(h);
+            for (int i = 0; i < p.length; i++) {
+                int e = size + parameterStart[h] + i;
+                types[e] = ids.id(p[i]);
+                annotationStart[e] = annotations.size();
+                //内部类构造函数的参数注解可能少于参数数量
+                Annotation[][] pa = parameterAnnotations[h];
+                int offset = pa.length - p.length;
+                if (i + offset >= 0) {
+                    annotations.addTypes(pa[i + offset], ids);
+                }
+            }
+        }
+        annotationStart[size + parameters] = annotations.size();
+        this.annotationTypes = annotations.toArray();
+        IntList classAnnotations = new IntList();
+        classAnnotations.addTypes(clazz.getDeclaredAnnotations(), ids);
+        this.classAnnotationTypes = classAnnotations.toArray();
+        this.typeTable = ids.toArray();
+        this.typeIds = ids.toMap();
+    }
+
+    /**
+     * 获取类的成员表，每个类只构建一次
+     */
+    public static ClassTable of(Class<?> clazz) {
+        return CACHE.get(clazz);
+    }
+
+    /**
+     * 构建不缓存的成员表
+     * (包内可见，用于测试对比内存占用)
+     */
+    static ClassTable build(Class<?> clazz) {
+        return new ClassTable(clazz);
+    }
+
+    /**
+     * 表对应的类
+     */
+    public Class<?> getType() {
+        return clazz;
+    }
+
+    /**
+     * 成员数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 所有成员的参数数量之和
+     */
+    public int parameterCount() {
+        return types.length - size;
+    }
+
+    public boolean isField(int h) {
+        return h >= 0 && h < fieldCount;
+    }
+
+    public boolean isMethod(int h) {
+        return h >= fieldCount && h < fieldCount + methodCount;
+    }
+
+    public boolean isConstructor(int h) {
+        return h >= fieldCount + methodCount && h < size;
+    }
+
+    public boolean isParameter(int e) {
+        return e >= size && e < types.length;
+    }
+
+    /**
+     * 根据名称查找字段
+     *
+     * @return 字段句柄，不存在时返回-1
+     */
+    public int field(String name) {
+        for (int h = 0; h < fieldCount; h++) {
+            if (names[h].equals(name)) {
+                return h;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 根据名称和参数类型查找方法
+     *
+     * @return 方法句柄，不存在时返回-1
+     */
+    public int method(String name, Class<?>... parameterTypes) {
+        for (int h = fieldCount; h < fieldCount + methodCount; h++) {
+            if (names[h].equals(name) && matches(h, parameterTypes)) {
+                return h;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 根据参数类型查找构造函数
+     *
+     * @return 构造函数句柄，不存在时返回-1
+     */
+    public int constructor(Class<?>... parameterTypes) {
+        for (int h = fieldCount + methodCount; h < size; h++) {
+            if (matches(h, parameterTypes)) {
+                return h;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int h, Class<?>[] parameterTypes) {
+        int start = size + parameterStart[h];
+        int count = parameterStart[h + 1] - parameterStart[h];
+        if (count != parameterTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (types[start + i] != find(parameterTypes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 成员名称，构造函数为"&lt;init&gt;"
+     */
+    public String name(int h) {
+        checkMember(h);
+        return names[h];
+    }
+
+    /**
+     * 成员的修饰符
+     */
+    public int modifiers(int h) {
+        checkMember(h);
+        return modifiers[h];
+    }
+
+    /**
+     * 元素的类型：字段类型、方法返回类型、构造函数所属类或参数类型
+     */
+    public Class<?> type(int e) {
+        checkElement(e);
+        return typeTable[types[e]];
+    }
+
+    /**
+     * 成员的参数数量，字段为0
+     */
+    public int parameterCount(int h) {
+        checkMember(h);
+        return parameterStart[h + 1] - parameterStart[h];
+    }
+
+    /**
+     * 成员第i个参数的句柄
+     */
+    public int parameter(int h, int i) {
+        if (i < 0 || i >= parameterCount(h)) {
+            throw new RuntimeException(String.format("%s没有第%d个参数!", name(h), i));
+        }
+        return size + parameterStart[h] + i;
+    }
+
+    /**
+     * 参数所属的成员
+     */
+    public int owner(int e) {
+        if (!isParameter(e)) {
+            throw new RuntimeException(String.format("句柄%d不是参数!", e));
+        }
+        //最后一个parameterStart不大于p的成员，没有参数的成员被跳过
+        int p = e - size;
+        int low = fieldCount;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (parameterStart[mid] <= p) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 参数在所属成员中的位置
+     */
+    public int index(int e) {
+        return e - size - parameterStart[owner(e)];
+    }
+
+    /**
+     * 元素上是否存在指定注解，不需要反射
+     */
+    public boolean has(int e, Class<? extends Annotation> annotationClass) {
+        checkElement(e);
+        int id = find(annotationClass);
+        if (id < 0) {
+            return false;
+        }
+        for (int i = annotationStart[e]; i < annotationStart[e + 1]; i++) {
+            if (annotationTypes[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 类上是否存在指定注解
+     */
+    public boolean has(Class<? extends Annotation> annotationClass) {
+        int id = find(annotationClass);
+        for (int t : classAnnotationTypes) {
+            if (t == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 元素上的注解类型
+     */
+    @SuppressWarnings("unchecked")
+    public List<Class<? extends Annotation>> annotationTypes(int e) {
+        checkElement(e);
+        List<Class<? extends Annotation>> list =
+                new ArrayList<Class<? extends Annotation>>(annotationStart[e + 1] - annotationStart[e]);
+        for (int i = annotationStart[e]; i < annotationStart[e + 1]; i++) {
+            list.add((Class<? extends Annotation>) typeTable[annotationTypes[i]]);
+        }
+        return list;
+    }
+
+    /**
+     * 获取元素上的注解实例，不存在该注解时直接返回null，存在时才通过反射获取
+     */
+    public <A extends Annotation> A annotation(int e, Class<A> annotationClass) {
+        if (!has(e, annotationClass)) {
+            return null;
+        }
+        return at(e).annotation(annotationClass).get();
+    }
+
+    /**
+     * 存在指定注解的元素(成员或参数)
+     *
+     * @return 按句柄顺序排列的元素句柄
+     */
+    public int[] select(Class<? extends Annotation> annotationClass) {
+        int id = find(annotationClass);
+        if (id < 0) {
+            return EMPTY;
+        }
+        IntList result = new IntList();
+        for (int e = 0; e < types.length; e++) {
+            for (int i = annotationStart[e]; i < annotationStart[e + 1]; i++) {
+                if (annotationTypes[i] == id) {
+                    result.add(e);
+                    break;
+                }
+            }
+        }
+        return result.toArray();
+    }
+
+    /**
+     * 创建成员对应的反射对象，不会被成员表保留
+     */
+    public Member toMember(int h) {
+        checkMember(h);
+        try {
+            if (h < fieldCount) {
+                return clazz.getDeclaredField(names[h]);
+            } else if (h < fieldCount + methodCount) {
+                return clazz.getDeclaredMethod(names[h], parameterTypes(h));
+            }
+            return clazz.getDeclaredConstructor(parameterTypes(h));
+        } catch (NoSuchFieldException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    public Field toField(int h) {
+        if (!isField(h)) {
+            throw new RuntimeException(String.format("句柄%d不是字段!", h));
+        }
+        return (Field) toMember(h);
+    }
+
+    public Method toMethod(int h) {
+        if (!isMethod(h)) {
+            throw new RuntimeException(String.format("句柄%d不是方法!", h));
+        }
+        return (Method) toMember(h);
+    }
+
+    public Constructor<?> toConstructor(int h) {
+        if (!isConstructor(h)) {
+            throw new RuntimeException(String.format("句柄%d不是构造函数!", h));
+        }
+        return (Constructor<?>) toMember(h);
+    }
+
+    /**
+     * 创建元素对应的AT对象，参数为at(member).arg(i)，内部类构造函数按参数注解的实际数量对齐
+     */
+    public AT at(int e) {
+        if (isParameter(e)) {
+            int h = owner(e);
+            Member member = toMember(h);
+            int count = parameterStart[h + 1] - parameterStart[h];
+            int i = e - size - parameterStart[h] + ((Executable) member).getParameterAnnotations().length - count;
+            return i < 0 ? AT._at(new Annotation[0]) : AT._at(member).arg(i);
+        }
+        return AT._at(toMember(e));
+    }
+
+    private Class<?>[] parameterTypes(int h) {
+        int start = size + parameterStart[h];
+        Class<?>[] parameterTypes = new Class<?>[parameterStart[h + 1] - parameterStart[h]];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterTypes[i] = typeTable[types[start + i]];
+        }
+        return parameterTypes;
+    }
+
+    /**
+     * 类型在表内的编号，表中未出现时返回-1
+     */
+    private int find(Class<?> type) {
+        Integer id = typeIds.get(type);
+        return id == null ? -1 : id;
+    }
+
+    private void checkMember(int h) {
+        if (h < 0 || h >= size) {
+            throw new RuntimeException(String.format("%s中不存在成员句柄%d!", clazz.getName(), h));
+        }
+    }
+
+    private void checkElement(int e) {
+        if (e < 0 || e >= types.length) {
+            throw new RuntimeException(String.format("%s中不存在元素句柄%d!", clazz.getName(), e));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ClassTable[%s]: %d个字段，%d个方法，%d个构造函数，%d个参数", clazz.getName(), fieldCount,
+                methodCount, size - fieldCount - methodCount, parameterCount());
+    }
+
+    /**
+     * 构建表时使用的int列表
+     */
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addTypes(Annotation[] annotations, TypeIds ids) {
+            for (Annotation annotation : annotations) {
+                add(ids.id(annotation.annotationType()));
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return size == 0 ? EMPTY : Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package z.cube.utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 指定参数的转换器
+ * 按名称调用时传入的参数值(包括默认值)先经过该转换器再传给方法或构造函数(见{@link Invoker})
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface ConvertWith {
+    /**
+     * 转换器类，需有无参构造函数
+     */
+    Class<? extends ArgumentConverter> value();
+}
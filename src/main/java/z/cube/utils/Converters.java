@@ -0,0 +1,106 @@
+package z.cube.utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 字符串与简单类型之间的转换
+ * 支持String、基本类型及其包装类、BigDecimal、BigInteger和枚举
+ */
+final class Converters {
+    private static final Map<Class<?>, Class<?>> WRAPPERS = new HashMap<Class<?>, Class<?>>(16);
+
+    static {
+        WRAPPERS.put(boolean.class, Boolean.class);
+        WRAPPERS.put(byte.class, Byte.class);
+        WRAPPERS.put(char.class, Character.class);
+        WRAPPERS.put(short.class, Short.class);
+        WRAPPERS.put(int.class, Integer.class);
+        WRAPPERS.put(long.class, Long.class);
+        WRAPPERS.put(float.class, Float.class);
+        WRAPPERS.put(double.class, Double.class);
+    }
+
+    private Converters() {
+    }
+
+    /**
+     * 是否支持该类型
+     */
+    static boolean supports(Class<?> type) {
+        Class<?> t = wrap(type);
+        return t == String.class || t.isEnum() || WRAPPERS.containsValue(t)
+                || t == BigDecimal.class || t == BigInteger.class;
+    }
+
+    /**
+     * 基本类型转为包装类，其他类型不变
+     */
+    static Class<?> wrap(Class<?> type) {
+        Class<?> wrapper = WRAPPERS.get(type);
+        return wrapper == null ? type : wrapper;
+    }
+
+    /**
+     * 转为字符串
+     */
+    static String toString(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        return value.toString();
+    }
+
+    /**
+     * 将字符串转为指定类型
+     *
+     * @param value 字符串，为null时返回null
+     * @param type  目标类型
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object fromString(String value, Class<?> type) {
+        if (value == null) {
+            return null;
+        }
+        Class<?> t = wrap(type);
+        if (t == String.class) {
+            return value;
+        }
+        try {
+            if (t == Integer.class) {
+                return Integer.valueOf(value.trim());
+            } else if (t == Long.class) {
+                return Long.valueOf(value.trim());
+            } else if (t == Boolean.class) {
+                return Boolean.valueOf(value.trim());
+            } else if (t == Double.class) {
+                return Double.valueOf(value.trim());
+            } else if (t == Float.class) {
+                return Float.valueOf(value.trim());
+            } else if (t == Short.class) {
+                return Short.valueOf(value.trim());
+            } else if (t == Byte.class) {
+                return Byte.valueOf(value.trim());
+            } else if (t == Character.class) {
+                if (value.length() != 1) {
+                    throw new IllegalArgumentException("字符长度不为1");
+                }
+                return value.charAt(0);
+            } else if (t == BigDecimal.class) {
+                return new BigDecimal(value.trim());
+            } else if (t == BigInteger.class) {
+                return new BigInteger(value.trim());
+            } else if (t.isEnum()) {
+                return Enum.valueOf((Class<? extends Enum>) t, value.trim());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(String.format("无法将\"%s\"转换为%s!", value, type.getName()), e);
+        }
+        throw new RuntimeException(String.format("不支持转换为%s!", type.getName()));
+    }
+}
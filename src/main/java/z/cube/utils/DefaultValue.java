@@ -0,0 +1,16 @@
+package z.cube.utils;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 参数默认值
+ * 按名称调用时未传入该参数则使用默认值，默认值按参数类型转换(见{@link Invoker})
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface DefaultValue {
+    String value();
+}
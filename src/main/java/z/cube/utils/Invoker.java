@@ -0,0 +1,242 @@
+package z.cube.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+
+import static z.cube.utils.AT.at;
+
+/**
+ * 按参数名称调用方法或构造函数
+ * 每个方法或构造函数只编译一次调用计划：参数名称到位置的映射、参数转换器、默认值以及MethodHandle，
+ * 调用时只需按名称从Map中取值填入参数数组；
+ * <p/>
+ * 参数值的处理顺序：
+ * 1. 未传入时使用{@link DefaultValue}，没有默认值时基本类型报错，其他类型为null；基本类型传入null同样报错
+ * 2. 存在{@link ConvertWith}时使用指定的转换器
+ * 3. 否则字符串按参数类型转换(支持基本类型及其包装类、BigDecimal、BigInteger和枚举)
+ * <p/>
+ * 非public的方法和构造函数同样可以调用，例如
+ * at(C.class).declaredConstructor(String.class).invoker().newInstance(args)
+ */
+public final class Invoker {
+    private static final MethodType SPREAD = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Member executable;
+    private final boolean constructor;
+    private final String[] names;
+    private final Class<?>[] types;
+    /**
+     * 传入字符串时是否按参数类型转换
+     */
+    private final boolean[] fromString;
+    private final ArgumentConverter[] converters;
+    private final boolean[] hasDefault;
+    /**
+     * 已转换的默认值
+     */
+    private final Object[] defaults;
+    /**
+     * 统一为(Object target, Object[] args)Object的调用句柄，静态方法和构造函数忽略target
+     */
+    private final MethodHandle handle;
+
+    private Invoker(Member executable) {
+        this.executable = executable;
+        this.constructor = executable instanceof Constructor;
+        String[] parameterNames = ParameterNames.of(executable);
+        if (parameterNames == null) {
+            throw new RuntimeException(String.format("无法获取%s的参数名称!", executable));
+        }
+        this.names = parameterNames;
+
+        AT at;
+        MethodHandle mh;
+        try {
+            if (constructor) {
+                Constructor<?> c = (Constructor<?>) executable;
+                this.types = c.getParameterTypes();
+                at = at(c);
+                mh = MethodHandles.dropArguments(Accessors.constructor(c), 0, Object.class);
+            } else {
+                Method m = (Method) executable;
+                this.types = m.getParameterTypes();
+                at = at(m);
+                mh = Accessors.method(m);
+                if (Modifier.isStatic(m.getModifiers())) {
+                    mh = MethodHandles.dropArguments(mh, 0, Object.class);
+                }
+            }
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+        if (names.length != types.length) {
+            throw new RuntimeException(String.format("%s的参数名称%s与参数个数%d不一致!", executable,
+                    Arrays.toString(names), types.length));
+        }
+        this.handle = mh.asFixedArity().asSpreader(Object[].class, types.length).asType(SPREAD);
+
+        int n = types.length;
+        this.fromString = new boolean[n];
+        this.converters = new ArgumentConverter[n];
+        this.hasDefault = new boolean[n];
+        this.defaults = new Object[n];
+        for (int i = 0; i < n; i++) {
+            fromString[i] = types[i] != String.class && Converters.supports(types[i]);
+            ConvertWith convertWith = at.arg(i).annotation(ConvertWith.class).get();
+            if (convertWith != null) {
+                converters[i] = converter(convertWith.value());
+            }
+            DefaultValue defaultValue = at.arg(i).annotation(DefaultValue.class).get();
+            if (defaultValue != null) {
+                hasDefault[i] = true;
+                defaults[i] = convert(i, defaultValue.value());
+            }
+        }
+    }
+
+    /**
+     * 获取方法的调用器
+     */
+    public static Invoker of(Method method) {
+        return ClassMetadata.of(method.getDeclaringClass()).invoker(method);
+    }
+
+    /**
+     * 获取构造函数的调用器
+     */
+    public static Invoker of(Constructor<?> constructor) {
+        return ClassMetadata.of(constructor.getDeclaringClass()).invoker(constructor);
+    }
+
+    /**
+     * 编译调用计划
+     * (包内可见，由ClassMetadata缓存)
+     */
+    static Invoker compile(Member executable) {
+        return new Invoker(executable);
+    }
+
+    private static ArgumentConverter converter(Class<? extends ArgumentConverter> clazz) {
+        try {
+            Constructor<? extends ArgumentConverter> c = clazz.getDeclaredConstructor();
+            c.setAccessible(true);
+            return c.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(String.format("无法创建转换器%s!", clazz.getName()), e);
+        }
+    }
+
+    /**
+     * 按参数位置转换参数值
+     */
+    private Object convert(int i, Object value) {
+        if (converters[i] != null) {
+            return converters[i].convert(value, types[i]);
+        }
+        if (fromString[i] && value instanceof String) {
+            return Converters.fromString((String) value, types[i]);
+        }
+        return value;
+    }
+
+    /**
+     * 按名称组装参数数组
+     */
+    private Object[] arguments(Map<String, ?> args) {
+        Object[] values = new Object[names.length];
+        int found = 0;
+        for (int i = 0; i < names.length; i++) {
+            Object value = args.get(names[i]);
+            if (value != null || args.containsKey(names[i])) {
+                found++;
+                values[i] = convert(i, value);
+            } else if (hasDefault[i]) {
+                values[i] = defaults[i];
+            }
+            if (values[i] == null && types[i].isPrimitive()) {
+                throw new RuntimeException(String.format("调用%s缺少参数%s!", executable, names[i]));
+            }
+        }
+        if (found < args.size()) {
+            throw new RuntimeException(String.format("%s不存在参数%s，可用的参数为%s!", executable,
+                    unknown(args), Arrays.toString(names)));
+        }
+        return values;
+    }
+
+    private String unknown(Map<String, ?> args) {
+        StringBuilder sb = new StringBuilder();
+        for (String name : args.keySet()) {
+            if (!Arrays.asList(names).contains(name)) {
+                sb.append(sb.length() == 0 ? "" : ",").append(name);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 按参数名称调用方法
+     *
+     * @param target 调用对象，静态方法为null
+     * @param args   参数名称到参数值的映射，多余的名称会报错
+     * @return 方法的返回值，void方法返回null
+     */
+    public Object invoke(Object target, Map<String, ?> args) {
+        if (constructor) {
+            throw new RuntimeException(String.format("%s为构造函数，请使用newInstance!", executable));
+        }
+        Object[] values = arguments(args);
+        try {
+            return (Object) handle.invokeExact(target, values);
+        } catch (Throwable e) {
+            throw new RuntimeException(String.format("调用%s失败!", executable), e);
+        }
+    }
+
+    /**
+     * 按参数名称调用构造函数
+     *
+     * @param args 参数名称到参数值的映射，多余的名称会报错
+     * @param <T>  构造的类型
+     * @return 新创建的实例
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T newInstance(Map<String, ?> args) {
+        if (!constructor) {
+            throw new RuntimeException(String.format("%s不是构造函数，请使用invoke!", executable));
+        }
+        Object[] values = arguments(args);
+        try {
+            Object instance = (Object) handle.invokeExact((Object) null, values);
+            return (T) instance;
+        } catch (Throwable e) {
+            throw new RuntimeException(String.format("调用%s失败!", executable), e);
+        }
+    }
+
+    /**
+     * 参数名称，按参数位置排列
+     */
+    public String[] parameterNames() {
+        return names.clone();
+    }
+
+    /**
+     * 对应的方法或构造函数
+     */
+    public Member getExecutable() {
+        return executable;
+    }
+
+    @Override
+    public String toString() {
+        return "Invoker" + Arrays.toString(names) + " " + executable;
+    }
+}
@@ -0,0 +1,357 @@
+package z.cube.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * GraalVM native-image 反射元数据生成器
+ * 记录AT用到的类、成员、参数名称和注解类型，生成reflect-config.json、resource-config.json、
+ * reachability-metadata.json以及参数名称资源；
+ * <p/>
+ * 两种使用方式：
+ * <pre>
+ * // 跟踪模式：运行一遍使用AT的代码
+ * NativeImageMetadata metadata = new NativeImageMetadata();
+ * ATTracer previous = AT.trace(metadata);
+ * ...
+ * AT.trace(previous);
+ * metadata.write(new File("src/main/resources"), "bqd.zcube/AT");
+ *
+ * // 构建时注册：登记类中声明的所有成员
+ * new NativeImageMetadata().register(Person.class).write(new File("target/classes"), "bqd.zcube/AT");
+ * </pre>
+ * 参数名称会写入{@value ParameterNames#RESOURCE}，运行时param(name)无需读取class文件
+ */
+public class NativeImageMetadata implements ATTracer {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 按类名排序的反射登记项
+     */
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentSkipListMap<String, Entry>();
+    /**
+     * 按签名排序的参数名称
+     */
+    private final ConcurrentMap<String, String[]> parameterNames = new ConcurrentSkipListMap<String, String[]>();
+
+    /**
+     * 登记类中声明的所有字段、方法、构造函数、参数名称以及出现的注解类型
+     *
+     * @param classes 需要登记的类
+     * @return 当前对象
+     */
+    public NativeImageMetadata register(Class<?>... classes) {
+        for (Class<?> clazz : classes) {
+            Entry entry = entry(clazz.getName());
+            entry.allDeclaredFields = true;
+            entry.allDeclaredMethods = true;
+            entry.allDeclaredConstructors = true;
+            annotations(clazz);
+            Package p = clazz.getPackage();
+            if (p != null && p.getDeclaredAnnotations().length > 0) {
+                element(p);
+                annotations(p);
+            }
+            for (Field field : clazz.getDeclaredFields()) {
+                annotations(field);
+            }
+            for (Method method : clazz.getDeclaredMethods()) {
+                annotations(method);
+                executable(method, method.getParameterAnnotations());
+            }
+            for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+                annotations(constructor);
+                executable(constructor, constructor.getParameterAnnotations());
+            }
+        }
+        return this;
+    }
+
+    private void annotations(AnnotatedElement element) {
+        for (Annotation annotation : element.getDeclaredAnnotations()) {
+            annotation(annotation.annotationType());
+        }
+    }
+
+    private void executable(Member executable, Annotation[][] parameterAnnotations) {
+        for (Annotation[] annotations : parameterAnnotations) {
+            for (Annotation annotation : annotations) {
+                annotation(annotation.annotationType());
+            }
+        }
+        if (parameterAnnotations.length > 0) {
+            parameterNames(executable, ParameterNames.of(executable));
+        }
+    }
+
+    @Override
+    public void element(AnnotatedElement element) {
+        if (element instanceof Class) {
+            entry(((Class<?>) element).getName());
+        } else if (element instanceof Field) {
+            Field field = (Field) element;
+            entry(field.getDeclaringClass().getName()).fields.add(field.getName());
+        } else if (element instanceof Method) {
+            Method method = (Method) element;
+            entry(method.getDeclaringClass().getName()).method(method.getName(), method.getParameterTypes());
+        } else if (element instanceof Constructor) {
+            Constructor<?> constructor = (Constructor<?>) element;
+            entry(constructor.getDeclaringClass().getName()).method("<init>", constructor.getParameterTypes());
+        } else if (element instanceof Package) {
+            //包上的注解位于package-info类中
+            entry(((Package) element).getName() + ".package-info");
+        }
+    }
+
+    @Override
+    public void members(Class<?> clazz, ElementType kind) {
+        Entry entry = entry(clazz.getName());
+        switch (kind) {
+            case FIELD:
+                entry.allDeclaredFields = true;
+                break;
+            case METHOD:
+                entry.allDeclaredMethods = true;
+                break;
+            case CONSTRUCTOR:
+                entry.allDeclaredConstructors = true;
+                break;
+            default:
+                throw new RuntimeException("不支持的成员类型" + kind);
+        }
+    }
+
+    @Override
+    public void parameterNames(Member executable, String[] names) {
+        element((AnnotatedElement) executable);
+        if (names != null) {
+            parameterNames.put(ParameterNames.key(executable), names);
+        }
+    }
+
+    @Override
+    public void type(Member member) {
+        //getAnnotatedType需要能够反射获取该成员
+        element((AnnotatedElement) member);
+    }
+
+    @Override
+    public void annotation(Class<? extends Annotation> annotationType) {
+        //注解的属性方法需要能够反射调用
+        entry(annotationType.getName()).allDeclaredMethods = true;
+    }
+
+    private Entry entry(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            entry = new Entry();
+            Entry previous = entries.putIfAbsent(name, entry);
+            if (previous != null) {
+                entry = previous;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 将元数据写入资源目录
+     * 反射配置写入META-INF/native-image/{name}/，参数名称写入{@value ParameterNames#RESOURCE}
+     *
+     * @param resourcesDir 资源根目录，如src/main/resources或target/classes
+     * @param name         native-image配置子目录，一般为groupId/artifactId
+     * @throws IOException 写入失败
+     */
+    public void write(File resourcesDir, String name) throws IOException {
+        File configDir = new File(resourcesDir, "META-INF/native-image/" + name);
+        writeFile(new File(configDir, "reflect-config.json"), reflectConfig());
+        writeFile(new File(configDir, "resource-config.json"), resourceConfig());
+        writeFile(new File(configDir, "reachability-metadata.json"), reachabilityMetadata());
+        writeFile(new File(resourcesDir, ParameterNames.RESOURCE), parameterNamesProperties());
+    }
+
+    private static void writeFile(File file, String content) throws IOException {
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("无法创建目录" + dir);
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes(UTF_8));
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * 生成reflect-config.json (GraalVM 23以前的格式)
+     */
+    public String reflectConfig() {
+        StringBuilder sb = new StringBuilder(1024).append("[\n");
+        appendReflection(sb, "name");
+        return sb.append("]\n").toString();
+    }
+
+    /**
+     * 生成resource-config.json (GraalVM 23以前的格式)
+     */
+    public String resourceConfig() {
+        return "{\n  \"resources\": {\n    \"includes\": [\n      {\"pattern\": "
+                + json("\\Q" + ParameterNames.RESOURCE + "\\E") + "}\n    ]\n  }\n}\n";
+    }
+
+    /**
+     * 生成reachability-metadata.json (GraalVM 23及以后的格式)
+     */
+    public String reachabilityMetadata() {
+        StringBuilder sb = new StringBuilder(1024).append("{\n\"reflection\": [\n");
+        appendReflection(sb, "type");
+        return sb.append("],\n\"resources\": [\n  {\"glob\": ").append(json(ParameterNames.RESOURCE))
+                .append("}\n]\n}\n").toString();
+    }
+
+    private void appendReflection(StringBuilder sb, String typeKey) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            Entry entry = e.getValue();
+            sb.append("  {\n    ").append(json(typeKey)).append(": ").append(json(e.getKey()));
+            if (entry.allDeclaredFields) {
+                sb.append(",\n    \"allDeclaredFields\": true");
+            }
+            if (entry.allDeclaredMethods) {
+                sb.append(",\n    \"allDeclaredMethods\": true");
+            }
+            if (entry.allDeclaredConstructors) {
+                sb.append(",\n    \"allDeclaredConstructors\": true");
+            }
+            if (!entry.fields.isEmpty()) {
+                sb.append(",\n    \"fields\": [");
+                String sep = "\n";
+                for (String field : entry.fields) {
+                    sb.append(sep).append("      {\"name\": ").append(json(field)).append('}');
+                    sep = ",\n";
+                }
+                sb.append("\n    ]");
+            }
+            if (!entry.methods.isEmpty()) {
+                sb.append(",\n    \"methods\": [");
+                String sep = "\n";
+                for (String[] method : entry.methods.values()) {
+                    sb.append(sep).append("      {\"name\": ").append(json(method[0])).append(", \"parameterTypes\": [");
+                    for (int i = 1; i < method.length; i++) {
+                        sb.append(i > 1 ? ", " : "").append(json(method[i]));
+                    }
+                    sb.append("]}");
+                    sep = ",\n";
+                }
+                sb.append("\n    ]");
+            }
+            sb.append("\n  }").append(it.hasNext() ? ",\n" : "\n");
+        }
+    }
+
+    /**
+     * 生成参数名称资源，格式为"签名=参数名称1,参数名称2"
+     */
+    public String parameterNamesProperties() {
+        StringBuilder sb = new StringBuilder(1024);
+        for (Map.Entry<String, String[]> e : parameterNames.entrySet()) {
+            escape(sb, e.getKey(), true);
+            sb.append('=');
+            String[] names = e.getValue();
+            for (int i = 0; i < names.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                escape(sb, names[i], false);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * properties转义，非ASCII字符使用unicode转义
+     */
+    private static void escape(StringBuilder sb, String s, boolean key) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c > 0x7e || c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else if (c == '\\' || c == '=' || c == ':' || (key && (c == ' ' || (i == 0 && (c == '#' || c == '!'))))) {
+                sb.append('\\').append(c);
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    private static String json(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * 构建时生成元数据
+     * 参数：资源根目录 配置子目录 类名...
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("用法: NativeImageMetadata <资源根目录> <groupId/artifactId> <类名>...");
+            System.exit(1);
+        }
+        NativeImageMetadata metadata = new NativeImageMetadata();
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        for (int i = 2; i < args.length; i++) {
+            metadata.register(Class.forName(args[i], false, loader));
+        }
+        metadata.write(new File(args[0]), args[1]);
+    }
+
+    /**
+     * 单个类的反射登记项
+     */
+    private static final class Entry {
+        volatile boolean allDeclaredFields;
+        volatile boolean allDeclaredMethods;
+        volatile boolean allDeclaredConstructors;
+        final Set<String> fields = new ConcurrentSkipListSet<String>();
+        /**
+         * 方法签名 -> {方法名称, 参数类型...}
+         */
+        final ConcurrentMap<String, String[]> methods = new ConcurrentSkipListMap<String, String[]>();
+
+        void method(String name, Class<?>[] parameterTypes) {
+            String[] method = new String[parameterTypes.length + 1];
+            method[0] = name;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                method[i + 1] = ParameterNames.typeName(parameterTypes[i]);
+            }
+            methods.putIfAbsent(Arrays.toString(method), method);
+        }
+    }
+}
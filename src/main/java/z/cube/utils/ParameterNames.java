@@ -0,0 +1,160 @@
+package z.cube.utils;
+
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * 参数名称
+ * 优先使用构建时生成的参数名称资源(见{@link NativeImageMetadata})，其次使用-parameters编译保留的参数名称，
+ * 都不存在时再通过读取字节码获取；
+ * 在native-image中无法读取class文件，只能依赖预先生成的资源；
+ * 获取到的参数名称缓存在声明类的{@link ClassMetadata}中
+ */
+final class ParameterNames {
+    /**
+     * 预先生成的参数名称资源路径
+     */
+    static final String RESOURCE = "META-INF/at/parameter-names.properties";
+    /**
+     * 参数名称发现类，用于寻找方法或构造函数中参数的名称
+     * ParameterNameDiscoverer 线程安全
+     */
+    private static final ParameterNameDiscoverer PND = new DefaultParameterNameDiscoverer();
+    /**
+     * 表示无法获取参数名称
+     */
+    static final String[] NONE = new String[0];
+
+    private ParameterNames() {
+    }
+
+    /**
+     * 获取方法或是构造函数的参数名称
+     *
+     * @param executable 方法或构造函数
+     * @return 参数名称数组(共享对象，不能修改)，无法获取时返回null
+     */
+    static String[] of(Member executable) {
+        String[] names = ClassMetadata.of(executable.getDeclaringClass()).parameterNames(executable);
+        return names == NONE ? null : names;
+    }
+
+    /**
+     * 查找参数名称，无法获取时返回{@link #NONE}
+     */
+    static String[] discover(Member executable) {
+        Map<String, String[]> baked = Baked.NAMES;
+        if (!baked.isEmpty()) {
+            String[] names = baked.get(key(executable));
+            if (names != null) {
+                return names;
+            }
+        }
+        //使用-parameters编译时直接通过反射获取，不需要读取class文件
+        Parameter[] parameters = ((Executable) executable).getParameters();
+        if (parameters.length == 0 || parameters[0].isNamePresent()) {
+            String[] names = new String[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                names[i] = parameters[i].getName();
+            }
+            return names;
+        }
+        String[] names;
+        if (executable instanceof Method) {
+            names = PND.getParameterNames((Method) executable);
+        } else if (executable instanceof Constructor) {
+            names = PND.getParameterNames((Constructor<?>) executable);
+        } else {
+            throw new RuntimeException("除Method和Constructor类外无法获取参数名称!");
+        }
+        return names == null ? NONE : names;
+    }
+
+    /**
+     * 生成方法或构造函数的签名，例如"z.cube.utils.Person#setName(java.lang.String)"
+     * 构造函数的名称为"&lt;init&gt;"
+     */
+    static String key(Member executable) {
+        Class<?>[] types;
+        String name;
+        if (executable instanceof Method) {
+            types = ((Method) executable).getParameterTypes();
+            name = executable.getName();
+        } else if (executable instanceof Constructor) {
+            types = ((Constructor<?>) executable).getParameterTypes();
+            name = "<init>";
+        } else {
+            throw new RuntimeException("除Method和Constructor类外无法生成签名!");
+        }
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(executable.getDeclaringClass().getName()).append('#').append(name).append('(');
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(typeName(types[i]));
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * 类型名称，数组使用"java.lang.String[]"形式
+     */
+    static String typeName(Class<?> type) {
+        if (type.isArray()) {
+            return typeName(type.getComponentType()) + "[]";
+        }
+        return type.getName();
+    }
+
+    /**
+     * 读取参数名称资源
+     */
+    static Map<String, String[]> load(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+        Map<String, String[]> names = new HashMap<String, String[]>(properties.size() * 2);
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            names.put(key, value.isEmpty() ? new String[0] : value.split(","));
+        }
+        return names;
+    }
+
+    /**
+     * 延迟加载classpath中所有的参数名称资源
+     */
+    private static final class Baked {
+        static final Map<String, String[]> NAMES = loadAll();
+
+        private static Map<String, String[]> loadAll() {
+            Map<String, String[]> names = new HashMap<String, String[]>();
+            try {
+                ClassLoader loader = ParameterNames.class.getClassLoader();
+                Enumeration<URL> urls = loader == null ? ClassLoader.getSystemResources(RESOURCE)
+                        : loader.getResources(RESOURCE);
+                while (urls.hasMoreElements()) {
+                    InputStream in = urls.nextElement().openStream();
+                    try {
+                        names.putAll(load(in));
+                    } finally {
+                        in.close();
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("无法读取参数名称资源" + RESOURCE, e);
+            }
+            return names;
+        }
+    }
+}
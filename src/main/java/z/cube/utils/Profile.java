@@ -0,0 +1,300 @@
+package z.cube.utils;
+
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * AT访问记录
+ * 通过{@link AT#trace(ATTracer)}记录进程中AT查找过的类、成员、参数名称和注解，按首次出现的顺序写入文件；
+ * 下次启动时通过{@link #warmUp(int)}在后台重放，提前填充AT的缓存，降低部署后首批请求的延迟
+ * <pre>
+ * // 录制
+ * Profile profile = new Profile();
+ * AT.trace(profile);
+ * ...
+ * profile.write(new File("at.profile"));
+ *
+ * // 启动时预热
+ * WarmUp warmUp = Profile.read(new File("at.profile")).warmUp(4);
+ * </pre>
+ * 文件每行一条记录，格式为"类型 签名"，例如"method z.cube.utils.Person#setName(java.lang.String)"
+ */
+public class Profile implements ATTracer {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final String CLASS = "class";
+    static final String FIELD = "field";
+    static final String METHOD = "method";
+    static final String CONSTRUCTOR = "constructor";
+    static final String PACKAGE = "package";
+    static final String PARAMS = "params";
+    static final String TYPE = "type";
+    static final String ANNOTATION = "annotation";
+    static final String FIELDS = "fields";
+    static final String METHODS = "methods";
+    static final String CONSTRUCTORS = "constructors";
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<String, Class<?>>(16);
+
+    static {
+        for (Class<?> type : new Class<?>[]{boolean.class, byte.class, char.class, short.class, int.class,
+                long.class, float.class, double.class, void.class}) {
+            PRIMITIVES.put(type.getName(), type);
+        }
+    }
+
+    /**
+     * 用于去重
+     */
+    private final ConcurrentMap<String, Boolean> seen = new ConcurrentHashMap<String, Boolean>();
+    /**
+     * 按首次出现顺序排列的记录
+     */
+    private final Queue<String> lookups = new ConcurrentLinkedQueue<String>();
+
+    /**
+     * 添加一条记录
+     *
+     * @param lookup 格式为"类型 签名"
+     */
+    void add(String lookup) {
+        if (seen.putIfAbsent(lookup, Boolean.TRUE) == null) {
+            lookups.add(lookup);
+        }
+    }
+
+    /**
+     * 所有记录
+     */
+    public List<String> lookups() {
+        return new ArrayList<String>(lookups);
+    }
+
+    @Override
+    public void element(AnnotatedElement element) {
+        if (element instanceof Class) {
+            add(CLASS + ' ' + ((Class<?>) element).getName());
+        } else if (element instanceof Field) {
+            Field field = (Field) element;
+            add(FIELD + ' ' + field.getDeclaringClass().getName() + '#' + field.getName());
+        } else if (element instanceof Method) {
+            add(METHOD + ' ' + ParameterNames.key((Method) element));
+        } else if (element instanceof Constructor) {
+            add(CONSTRUCTOR + ' ' + ParameterNames.key((Constructor<?>) element));
+        } else if (element instanceof Package) {
+            add(PACKAGE + ' ' + ((Package) element).getName());
+        }
+    }
+
+    @Override
+    public void members(Class<?> clazz, ElementType kind) {
+        String type = kind == ElementType.FIELD ? FIELDS : kind == ElementType.METHOD ? METHODS : CONSTRUCTORS;
+        add(type + ' ' + clazz.getName());
+    }
+
+    @Override
+    public void parameterNames(Member executable, String[] names) {
+        add(PARAMS + ' ' + ParameterNames.key(executable));
+    }
+
+    @Override
+    public void type(Member member) {
+        String signature = member instanceof Field ? member.getDeclaringClass().getName() + '#' + member.getName()
+                : ParameterNames.key(member);
+        add(TYPE + ' ' + signature);
+    }
+
+    @Override
+    public void annotation(Class<? extends Annotation> annotationType) {
+        add(ANNOTATION + ' ' + annotationType.getName());
+    }
+
+    /**
+     * 读取记录文件
+     */
+    public static Profile read(File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), UTF_8);
+        try {
+            return read(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * 读取记录，空行和"#"开头的行会被忽略
+     */
+    public static Profile read(Reader reader) throws IOException {
+        Profile profile = new Profile();
+        BufferedReader br = new BufferedReader(reader);
+        String line;
+        while ((line = br.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                profile.add(line);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * 写入记录文件
+     */
+    public void write(File file) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8);
+        try {
+            write(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * 写入记录
+     */
+    public void write(Writer writer) throws IOException {
+        for (String lookup : lookups) {
+            writer.write(lookup);
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * 在后台用指定数量的守护线程重放记录
+     *
+     * @param threads 线程数量
+     * @return 预热任务
+     */
+    public WarmUp warmUp(int threads) {
+        return WarmUp.start(lookups(), threads);
+    }
+
+    /**
+     * 在指定的Executor中重放记录，最多同时占用parallelism个线程
+     * 例如JDK21可以传入虚拟线程的Executor
+     *
+     * @param executor    执行重放任务的Executor
+     * @param parallelism 并行度
+     * @return 预热任务
+     */
+    public WarmUp warmUp(Executor executor, int parallelism) {
+        return WarmUp.start(lookups(), executor, parallelism);
+    }
+
+    /**
+     * 重放一条记录，填充AT的缓存
+     */
+    static void replay(String lookup, ClassLoader loader) throws Exception {
+        int space = lookup.indexOf(' ');
+        if (space < 0) {
+            throw new RuntimeException("无法识别的记录" + lookup);
+        }
+        String type = lookup.substring(0, space);
+        String signature = lookup.substring(space + 1);
+        if (CLASS.equals(type)) {
+            type(signature, loader).getDeclaredAnnotations();
+        } else if (FIELD.equals(type)) {
+            int hash = signature.indexOf('#');
+            ClassMetadata.of(type(signature.substring(0, hash), loader)).field(signature.substring(hash + 1))
+                    .getDeclaredAnnotations();
+        } else if (METHOD.equals(type) || CONSTRUCTOR.equals(type)) {
+            ((AnnotatedElement) executable(signature, loader)).getDeclaredAnnotations();
+        } else if (PARAMS.equals(type)) {
+            ParameterNames.of(executable(signature, loader));
+        } else if (TYPE.equals(type)) {
+            Member member;
+            if (signature.indexOf('(') < 0) {
+                int hash = signature.indexOf('#');
+                member = ClassMetadata.of(type(signature.substring(0, hash), loader))
+                        .field(signature.substring(hash + 1));
+            } else {
+                member = executable(signature, loader);
+            }
+            AnnotatedTypeNode.nodes(member);
+        } else if (ANNOTATION.equals(type)) {
+            Class.forName(signature, true, loader);
+        } else if (PACKAGE.equals(type)) {
+            //包上的注解位于package-info类中，通过指定的类加载器加载，没有package-info时无需预热
+            Class<?> info;
+            try {
+                info = Class.forName(signature + ".package-info", false, loader);
+            } catch (ClassNotFoundException e) {
+                return;
+            }
+            info.getPackage().getDeclaredAnnotations();
+        } else if (FIELDS.equals(type)) {
+            type(signature, loader).getDeclaredFields();
+        } else if (METHODS.equals(type)) {
+            type(signature, loader).getDeclaredMethods();
+        } else if (CONSTRUCTORS.equals(type)) {
+            type(signature, loader).getDeclaredConstructors();
+        } else {
+            throw new RuntimeException("无法识别的记录" + lookup);
+        }
+    }
+
+    /**
+     * 根据签名获取方法或构造函数，通过AT的缓存查找
+     */
+    private static Member executable(String signature, ClassLoader loader) throws Exception {
+        int hash = signature.indexOf('#');
+        int open = signature.indexOf('(', hash);
+        Class<?> clazz = type(signature.substring(0, hash), loader);
+        String name = signature.substring(hash + 1, open);
+        String types = signature.substring(open + 1, signature.length() - 1);
+        Class<?>[] parameterTypes;
+        if (types.isEmpty()) {
+            parameterTypes = new Class<?>[0];
+        } else {
+            String[] names = types.split(",");
+            parameterTypes = new Class<?>[names.length];
+            for (int i = 0; i < names.length; i++) {
+                parameterTypes[i] = type(names[i], loader);
+            }
+        }
+        if (!"<init>".equals(name)) {
+            return ClassMetadata.of(clazz).method(name, parameterTypes);
+        }
+        try {
+            return ClassMetadata.of(clazz).constructor(parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return ClassMetadata.of(clazz).declaredConstructor(parameterTypes);
+        }
+    }
+
+    /**
+     * 根据名称加载类型，支持基本类型和"java.lang.String[]"形式的数组
+     */
+    private static Class<?> type(String name, ClassLoader loader) throws ClassNotFoundException {
+        if (name.endsWith("[]")) {
+            return java.lang.reflect.Array.newInstance(type(name.substring(0, name.length() - 2), loader), 0)
+                    .getClass();
+        }
+        Class<?> primitive = PRIMITIVES.get(name);
+        return primitive != null ? primitive : Class.forName(name, false, loader);
+    }
+
+    @Override
+    public String toString() {
+        StringWriter writer = new StringWriter();
+        try {
+            write(writer);
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,305 @@
+package z.cube.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Bean属性
+ * 合并字段、getter方法和setter方法参数上的注解，同一类型的注解按 字段 &gt; getter &gt; setter参数 的优先级取值；
+ * 只有public的getter和setter方法构成属性，只包含类中声明的属性，不包含从父类继承的属性；
+ * 没有setter的属性是只读的，不会绕过getter直接写字段；
+ * <p/>
+ * 每个类的属性表只构建一次，缓存在类的元数据中，通过at(clazz).property(name)或properties(filter)获取；
+ * 读写用的MethodHandle在首次get/set时绑定，只读取注解时不需要访问权限，也不修改字段和方法的accessible标记
+ */
+public final class Property implements AnnotatedElement {
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final String name;
+    private final Class<?> type;
+    private final Field field;
+    private final Method getter;
+    private final Method setter;
+    /**
+     * 合并后的注解
+     */
+    private final Annotation[] annotations;
+    /**
+     * 每个注解的来源，与annotations一一对应
+     */
+    private final AnnotatedElement[] sources;
+    private volatile MethodHandle getHandle;
+    private volatile MethodHandle setHandle;
+
+    private Property(String name, Field field, Method getter, Method setter) {
+        this.name = name;
+        this.field = field;
+        this.getter = getter;
+        this.setter = setter;
+        this.type = getter != null ? getter.getReturnType()
+                : field != null ? field.getType() : setter.getParameterTypes()[0];
+
+        List<Annotation> merged = new ArrayList<Annotation>();
+        List<AnnotatedElement> from = new ArrayList<AnnotatedElement>();
+        if (field != null) {
+            merge(field.getDeclaredAnnotations(), field, merged, from);
+        }
+        if (getter != null) {
+            merge(getter.getDeclaredAnnotations(), getter, merged, from);
+        }
+        if (setter != null) {
+            merge(setter.getParameterAnnotations()[0], setter, merged, from);
+        }
+        this.annotations = merged.toArray(new Annotation[merged.size()]);
+        this.sources = from.toArray(new AnnotatedElement[from.size()]);
+    }
+
+    /**
+     * 优先级高的注解先加入，已存在的注解类型忽略
+     */
+    private static void merge(Annotation[] annotations, AnnotatedElement source, List<Annotation> merged,
+                              List<AnnotatedElement> from) {
+        for (Annotation annotation : annotations) {
+            boolean exists = false;
+            for (Annotation m : merged) {
+                if (m.annotationType() == annotation.annotationType()) {
+                    exists = true;
+                    break;
+                }
+            }
+            if (!exists) {
+                merged.add(annotation);
+                from.add(source);
+            }
+        }
+    }
+
+    /**
+     * 构建类中声明的属性表，按字段、getter、setter出现的顺序排列
+     */
+    static Map<String, Property> of(Class<?> clazz) {
+        Map<String, Field> fields = new LinkedHashMap<String, Field>();
+        Map<String, Method> getters = new LinkedHashMap<String, Method>();
+        Map<String, List<Method>> setters = new LinkedHashMap<String, List<Method>>();
+        for (Field field : clazz.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                fields.put(field.getName(), field);
+            }
+        }
+        for (Method method : clazz.getDeclaredMethods()) {
+            int modifiers = method.getModifiers();
+            if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || method.isSynthetic()
+                    || method.isBridge()) {
+                continue;
+            }
+            String n = method.getName();
+            int count = method.getParameterTypes().length;
+            if (count == 0 && method.getReturnType() != void.class) {
+                if (n.startsWith("get") && n.length() > 3) {
+                    getters.put(decapitalize(n.substring(3)), method);
+                } else if (n.startsWith("is") && n.length() > 2 && method.getReturnType() == boolean.class) {
+                    getters.put(decapitalize(n.substring(2)), method);
+                }
+            } else if (count == 1 && n.startsWith("set") && n.length() > 3) {
+                String property = decapitalize(n.substring(3));
+                List<Method> list = setters.get(property);
+                if (list == null) {
+                    list = new ArrayList<Method>(1);
+                    setters.put(property, list);
+                }
+                list.add(method);
+            }
+        }
+        Set<String> names = new LinkedHashSet<String>(fields.keySet());
+        names.addAll(getters.keySet());
+        names.addAll(setters.keySet());
+        Map<String, Property> properties = new LinkedHashMap<String, Property>(names.size() * 2);
+        for (String name : names) {
+            Field field = fields.get(name);
+            Method getter = getters.get(name);
+            Class<?> type = getter != null ? getter.getReturnType() : field != null ? field.getType() : null;
+            Method setter = setter(setters.get(name), type);
+            if (getter == null && setter == null) {
+                //只有字段的不是Bean属性
+                continue;
+            }
+            if (field != null && type != null && field.getType() != type) {
+                field = null;
+            }
+            properties.put(name, new Property(name, field, getter, setter));
+        }
+        return Collections.unmodifiableMap(properties);
+    }
+
+    /**
+     * 选择参数类型与属性类型一致的setter，属性类型未知时只接受唯一的setter
+     */
+    private static Method setter(List<Method> candidates, Class<?> type) {
+        if (candidates == null) {
+            return null;
+        }
+        for (Method method : candidates) {
+            if (type == null ? candidates.size() == 1 : method.getParameterTypes()[0] == type) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    static String decapitalize(String s) {
+        if (s.isEmpty() || (s.length() > 1 && Character.isUpperCase(s.charAt(1)))) {
+            return s;
+        }
+        return Character.toLowerCase(s.charAt(0)) + s.substring(1);
+    }
+
+    /**
+     * 属性名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 属性类型
+     */
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * 对应的字段，可能为null
+     */
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * getter方法，可能为null
+     */
+    public Method getGetter() {
+        return getter;
+    }
+
+    /**
+     * setter方法，可能为null
+     */
+    public Method getSetter() {
+        return setter;
+    }
+
+    /**
+     * 是否可读
+     */
+    public boolean isReadable() {
+        return getter != null || field != null;
+    }
+
+    /**
+     * 是否可写
+     */
+    public boolean isWritable() {
+        return setter != null;
+    }
+
+    /**
+     * 读取属性值，优先使用getter，没有getter时直接读取字段
+     */
+    public Object get(Object bean) {
+        if (!isReadable()) {
+            throw new RuntimeException(String.format("属性%s不可读!", name));
+        }
+        try {
+            return (Object) getHandle().invokeExact(bean);
+        } catch (Throwable e) {
+            throw new RuntimeException(String.format("无法读取属性%s!", name), e);
+        }
+    }
+
+    /**
+     * 通过setter设置属性值
+     */
+    public void set(Object bean, Object value) {
+        if (!isWritable()) {
+            throw new RuntimeException(String.format("属性%s不可写!", name));
+        }
+        try {
+            setHandle().invokeExact(bean, value);
+        } catch (Throwable e) {
+            throw new RuntimeException(String.format("无法设置属性%s!", name), e);
+        }
+    }
+
+    /**
+     * 读取用的MethodHandle，首次使用时绑定
+     */
+    private MethodHandle getHandle() throws IllegalAccessException {
+        MethodHandle handle = getHandle;
+        if (handle == null) {
+            handle = getter != null ? Accessors.method(getter) : Accessors.getter(field);
+            handle = handle.asType(GETTER);
+            getHandle = handle;
+        }
+        return handle;
+    }
+
+    /**
+     * 设置用的MethodHandle，首次使用时绑定
+     */
+    private MethodHandle setHandle() throws IllegalAccessException {
+        MethodHandle handle = setHandle;
+        if (handle == null) {
+            handle = Accessors.method(setter).asType(SETTER);
+            setHandle = handle;
+        }
+        return handle;
+    }
+
+    /**
+     * 注解的来源：字段、getter方法或setter方法(注解位于其参数上)
+     *
+     * @param annotationClass 注解类
+     * @return 来源，不存在该注解时返回null
+     */
+    public AnnotatedElement source(Class<? extends Annotation> annotationClass) {
+        for (int i = 0; i < annotations.length; i++) {
+            if (annotations[i].annotationType() == annotationClass) {
+                return sources[i];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Annotation> T getAnnotation(Class<T> annotationClass) {
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType() == annotationClass) {
+                return (T) annotation;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Annotation[] getAnnotations() {
+        return annotations.clone();
+    }
+
+    @Override
+    public Annotation[] getDeclaredAnnotations() {
+        return annotations.clone();
+    }
+
+    @Override
+    public String toString() {
+        return type.getName() + " " + name;
+    }
+}
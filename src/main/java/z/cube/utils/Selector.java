@@ -0,0 +1,568 @@
+package z.cube.utils;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * 注解位置选择器
+ * 用字符串描述注解所在的位置，编译后得到可复用、线程安全的执行计划，并按选择器字符串缓存；
+ * 执行计划不持有类，执行结果通过ClassValue随目标类缓存，不会阻止类加载器被卸载；
+ * <p/>
+ * 语法：
+ * <pre>
+ * selector   := [type] [member] [param] [annotation]
+ * type       := 类名(全限定名或简单名)
+ * member     := '#' name                  字段
+ *             | '#' name '(' types ')'    方法
+ *             | '.&lt;init&gt;(' types ')'      构造函数
+ *             | '.package'                包
+ * types      := 空 | '..'(任意参数) | type (',' type)*
+ * param      := '/' name | '[' index ']' | '/*' | '[*]'
+ * annotation := '@' name | '@*'
+ * </pre>
+ * 成员名称和注解名称中可使用通配符"*"，例如：
+ * <pre>
+ * Person#setName(String)/name@NotNull
+ * Person.&lt;init&gt;(String,Integer)[1]@Max
+ * Person#*@XmlAttribute
+ * Person#name@Xml*
+ * *#set*(..)/*@NotNull
+ * z.cube.utils.Person.package@PackageAnnotationTest
+ * </pre>
+ * 参数类型和注解可以用简单名或全限定名匹配；类型省略或为"*"时需通过{@link #selectAll(Class)}指定；
+ * 含通配符的选择器跳过不存在指定参数的成员，精确的选择器找不到成员或参数时报错
+ */
+public final class Selector {
+    /**
+     * 已编译的选择器，按选择器字符串缓存，只保存解析结果
+     */
+    private static final ConcurrentMap<String, Selector> CACHE = new ConcurrentHashMap<String, Selector>();
+
+    private static final int FIELD = 1;
+    private static final int METHOD = 2;
+    private static final int CONSTRUCTOR = 3;
+    private static final int PACKAGE = 4;
+    /**
+     * 表示任意参数类型列表
+     */
+    private static final String[] ANY = new String[0];
+
+    /**
+     * 原始选择器字符串
+     */
+    private final String source;
+    /**
+     * 类型名称，可为null
+     */
+    private final String typeName;
+    /**
+     * 成员类型，0表示类本身
+     */
+    private final int memberKind;
+    /**
+     * 成员名称匹配
+     */
+    private final Pattern memberName;
+    /**
+     * 参数类型列表，ANY表示任意参数
+     */
+    private final String[] parameterTypes;
+    /**
+     * 参数名称，"*"表示所有参数
+     */
+    private final String paramName;
+    /**
+     * 参数索引，-1表示未指定
+     */
+    private final int paramIndex;
+    /**
+     * 注解名称，"*"表示所有注解，null表示未指定
+     */
+    private final String annotationName;
+    /**
+     * 注解名称匹配，未指定注解时为null
+     */
+    private final Pattern annotationPattern;
+    /**
+     * 是否为不含通配符的精确选择器
+     */
+    private final boolean exact;
+    /**
+     * 按上下文类加载器缓存解析出的类型，均为弱引用，不会阻止类加载器被卸载
+     */
+    private final Map<ClassLoader, WeakReference<Class<?>>> types =
+            new WeakHashMap<ClassLoader, WeakReference<Class<?>>>();
+    /**
+     * 按类缓存的执行结果
+     */
+    private final ClassValue<List<AT>> results = new ClassValue<List<AT>>() {
+        @Override
+        protected List<AT> computeValue(Class<?> clazz) {
+            return Collections.unmodifiableList(evaluate(clazz));
+        }
+    };
+
+    private Selector(String source, String typeName, int memberKind, Pattern memberName, String[] parameterTypes,
+                     String paramName, int paramIndex, String annotationName, boolean exact) {
+        this.source = source;
+        this.typeName = typeName;
+        this.memberKind = memberKind;
+        this.memberName = memberName;
+        this.parameterTypes = parameterTypes;
+        this.paramName = paramName;
+        this.paramIndex = paramIndex;
+        this.annotationName = annotationName;
+        this.annotationPattern = annotationName == null ? null : Parser.wildcard(annotationName);
+        this.exact = exact;
+    }
+
+    /**
+     * 编译选择器，相同字符串返回同一个执行计划
+     *
+     * @param selector 选择器字符串
+     * @return 编译后的选择器
+     */
+    public static Selector compile(String selector) {
+        if (selector == null) {
+            throw new RuntimeException("选择器不能为空!");
+        }
+        Selector compiled = CACHE.get(selector);
+        if (compiled == null) {
+            compiled = new Parser(selector).parse();
+            Selector previous = CACHE.putIfAbsent(selector, compiled);
+            if (previous != null) {
+                compiled = previous;
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * 根据选择器中的类型执行，返回第一个结果
+     * 选择器的类型需为全限定名，每次执行时通过当前线程的上下文类加载器解析
+     *
+     * @return 第一个结果；指定注解但不存在时返回空的AT对象
+     */
+    public AT select() {
+        return select(type());
+    }
+
+    /**
+     * 在指定类上执行，返回第一个结果
+     *
+     * @param clazz 目标类
+     * @return 第一个结果；指定注解但不存在时返回空的AT对象
+     */
+    public AT select(Class<?> clazz) {
+        List<AT> ats = selectAll(clazz);
+        return ats.isEmpty() ? AT._at(null) : ats.get(0);
+    }
+
+    /**
+     * 根据选择器中的类型执行，返回所有结果
+     *
+     * @return 所有匹配的结果，没有匹配时返回空列表
+     */
+    public List<AT> selectAll() {
+        return selectAll(type());
+    }
+
+    /**
+     * 在指定类上执行，返回所有结果
+     * 指定注解时只返回存在该注解的位置；
+     * 设置了{@link ATTracer}时不使用缓存的结果，保证每次执行都被记录
+     *
+     * @param clazz 目标类
+     * @return 所有匹配的结果(不可修改)，没有匹配时返回空列表
+     */
+    public List<AT> selectAll(Class<?> clazz) {
+        checkType(clazz);
+        if (AT.tracer() != null) {
+            return Collections.unmodifiableList(evaluate(clazz));
+        }
+        return results.get(clazz);
+    }
+
+    /**
+     * 解析选择器中的类型，不同的上下文类加载器可以解析出不同的类，每个类加载器只解析一次
+     */
+    private Class<?> type() {
+        if (typeName == null) {
+            throw new RuntimeException(String.format("选择器[%s]未指定类型!", source));
+        }
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (loader == null) {
+            loader = Selector.class.getClassLoader();
+        }
+        synchronized (types) {
+            WeakReference<Class<?>> ref = types.get(loader);
+            Class<?> type = ref == null ? null : ref.get();
+            if (type == null) {
+                try {
+                    type = Class.forName(typeName, false, loader);
+                } catch (ClassNotFoundException e) {
+                    throw new RuntimeException(String.format("选择器[%s]无法解析类型%s!", source, typeName), e);
+                }
+                types.put(loader, new WeakReference<Class<?>>(type));
+            }
+            return type;
+        }
+    }
+
+    /**
+     * 校验指定类与选择器中的类型一致
+     */
+    private void checkType(Class<?> clazz) {
+        if (clazz == null) {
+            throw new RuntimeException(String.format("选择器[%s]的目标类不能为空!", source));
+        }
+        if (typeName != null && !typeName.equals(clazz.getName()) && !typeName.equals(clazz.getSimpleName())
+                && !typeName.equals(clazz.getCanonicalName())) {
+            throw new RuntimeException(String.format("选择器[%s]与类%s不匹配!", source, clazz.getName()));
+        }
+    }
+
+    /**
+     * 依次执行成员、参数和注解步骤
+     */
+    private List<AT> evaluate(Class<?> clazz) {
+        List<AT> targets = new ArrayList<AT>();
+        for (Object element : members(clazz)) {
+            targets.addAll(params(element));
+        }
+        if (annotationName == null) {
+            return targets;
+        }
+        List<AT> ats = new ArrayList<AT>(targets.size());
+        for (AT target : targets) {
+            for (Annotation annotation : annotations(target)) {
+                if (matches(annotationPattern, annotation.annotationType())) {
+                    ATTracer tracer = AT.tracer();
+                    if (tracer != null) {
+                        tracer.annotation(annotation.annotationType());
+                    }
+                    ats.add(AT._at(annotation));
+                }
+            }
+        }
+        return ats;
+    }
+
+    /**
+     * 成员步骤
+     */
+    private List<Object> members(Class<?> clazz) {
+        List<Object> members = new ArrayList<Object>();
+        ATTracer tracer = AT.tracer();
+        if (tracer != null && memberKind != 0 && memberKind != PACKAGE) {
+            tracer.members(clazz, memberKind == FIELD ? ElementType.FIELD
+                    : memberKind == METHOD ? ElementType.METHOD : ElementType.CONSTRUCTOR);
+        }
+        switch (memberKind) {
+            case FIELD:
+                for (Field field : clazz.getDeclaredFields()) {
+                    if (memberName.matcher(field.getName()).matches()) {
+                        members.add(field);
+                    }
+                }
+                break;
+            case METHOD:
+                for (Method method : clazz.getDeclaredMethods()) {
+                    if (memberName.matcher(method.getName()).matches()
+                            && matches(parameterTypes, method.getParameterTypes())) {
+                        members.add(method);
+                    }
+                }
+                break;
+            case CONSTRUCTOR:
+                for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+                    if (matches(parameterTypes, constructor.getParameterTypes())) {
+                        members.add(constructor);
+                    }
+                }
+                break;
+            case PACKAGE:
+                members.add(clazz.getPackage());
+                break;
+            default:
+                members.add(clazz);
+        }
+        if (members.isEmpty() && exact) {
+            throw new RuntimeException(String.format("选择器[%s]在%s上无法找到匹配的成员!", source, clazz.getName()));
+        }
+        return members;
+    }
+
+    /**
+     * 参数步骤
+     */
+    private List<AT> params(Object element) {
+        AT at = AT._at(element);
+        if (paramName == null && paramIndex < 0) {
+            return Collections.singletonList(at);
+        }
+        int count = element instanceof Method ? ((Method) element).getParameterTypes().length
+                : ((Constructor<?>) element).getParameterTypes().length;
+        if ("*".equals(paramName)) {
+            List<AT> ats = new ArrayList<AT>(count);
+            for (int i = 0; i < count; i++) {
+                ats.add(at.arg(i));
+            }
+            return ats;
+        }
+        if (paramName != null) {
+            String[] names = ParameterNames.of((Member) element);
+            ATTracer tracer = AT.tracer();
+            if (tracer != null) {
+                tracer.parameterNames((Member) element, names);
+            }
+            if (names == null || !Arrays.asList(names).contains(paramName)) {
+                return missingParam(element, paramName);
+            }
+            return Collections.singletonList(at.param(paramName));
+        }
+        if (paramIndex >= count) {
+            return missingParam(element, "[" + paramIndex + "]");
+        }
+        return Collections.singletonList(at.arg(paramIndex));
+    }
+
+    /**
+     * 成员上不存在指定参数，含通配符时跳过该成员
+     */
+    private List<AT> missingParam(Object element, String param) {
+        if (exact) {
+            throw new RuntimeException(String.format("选择器[%s]在%s上无法找到参数%s!", source, element, param));
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 获取目标位置上的所有注解
+     */
+    private static Annotation[] annotations(AT target) {
+        if (!target.isPresent()) {
+            return new Annotation[0];
+        }
+        Object object = target.object();
+        if (object instanceof Annotation[]) {
+            return (Annotation[]) object;
+        }
+        return ((AnnotatedElement) object).getDeclaredAnnotations();
+    }
+
+    /**
+     * 参数类型列表是否匹配
+     */
+    private static boolean matches(String[] expected, Class<?>[] actual) {
+        if (expected == ANY) {
+            return true;
+        }
+        if (expected.length != actual.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (!matches(expected[i], actual[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 注解类型是否匹配，支持简单名、全限定名和通配符
+     */
+    private static boolean matches(Pattern name, Class<?> type) {
+        return name.matcher(type.getSimpleName()).matches() || name.matcher(type.getName()).matches()
+                || name.matcher(type.getCanonicalName()).matches();
+    }
+
+    /**
+     * 类型名称是否匹配，支持简单名和全限定名
+     */
+    private static boolean matches(String name, Class<?> type) {
+        return name.equals(type.getSimpleName()) || name.equals(type.getName()) || name.equals(type.getCanonicalName());
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * 选择器解析器
+     */
+    private static final class Parser {
+        private final String source;
+        private int pos;
+
+        Parser(String source) {
+            this.source = source.trim();
+        }
+
+        Selector parse() {
+            String typeName = null;
+            int memberKind = 0;
+            Pattern memberName = null;
+            String[] parameterTypes = null;
+            String paramName = null;
+            int paramIndex = -1;
+            String annotationName = null;
+            boolean exact = true;
+
+            if (pos < source.length() && isNameChar(source.charAt(pos))) {
+                typeName = typeName();
+                if ("*".equals(typeName)) {
+                    //"*"表示类型在执行时指定
+                    typeName = null;
+                }
+            }
+            if (startsWith("#")) {
+                pos++;
+                String name = name();
+                memberName = wildcard(name);
+                exact = name.indexOf('*') < 0;
+                if (startsWith("(")) {
+                    memberKind = METHOD;
+                    parameterTypes = parameterTypes();
+                    exact &= parameterTypes != ANY;
+                } else {
+                    memberKind = FIELD;
+                }
+            } else if (startsWith(".<init>")) {
+                pos += ".<init>".length();
+                memberKind = CONSTRUCTOR;
+                if (!startsWith("(")) {
+                    throw error("构造函数缺少参数列表");
+                }
+                parameterTypes = parameterTypes();
+                exact &= parameterTypes != ANY;
+            } else if (startsWith(".package")) {
+                pos += ".package".length();
+                memberKind = PACKAGE;
+            }
+            if (startsWith("/")) {
+                pos++;
+                paramName = name();
+                exact &= !"*".equals(paramName);
+            } else if (startsWith("[")) {
+                pos++;
+                String index = until(']');
+                pos++;
+                if ("*".equals(index)) {
+                    paramName = "*";
+                    exact = false;
+                } else {
+                    try {
+                        paramIndex = Integer.parseInt(index);
+                    } catch (NumberFormatException e) {
+                        throw error("参数索引不是数字");
+                    }
+                }
+            }
+            if ((paramName != null || paramIndex >= 0) && memberKind != METHOD && memberKind != CONSTRUCTOR) {
+                throw error("只有方法和构造函数可以指定参数");
+            }
+            if (startsWith("@")) {
+                pos++;
+                annotationName = typeName();
+                exact &= annotationName.indexOf('*') < 0;
+            }
+            if (pos != source.length()) {
+                throw error("无法识别的内容");
+            }
+            return new Selector(source, typeName, memberKind, memberName, parameterTypes, paramName, paramIndex,
+                    annotationName, exact);
+        }
+
+        /**
+         * 读取限定名，遇到".&lt;init&gt;"或".package"时停止
+         */
+        private String typeName() {
+            int start = pos;
+            while (pos < source.length()) {
+                char c = source.charAt(pos);
+                if (c == '.' && (source.startsWith(".<init>", pos) || isPackageKeyword(pos))) {
+                    break;
+                }
+                if (!isNameChar(c) && c != '.') {
+                    break;
+                }
+                pos++;
+            }
+            if (start == pos) {
+                throw error("缺少名称");
+            }
+            return source.substring(start, pos);
+        }
+
+        private boolean isPackageKeyword(int at) {
+            int end = at + ".package".length();
+            return source.startsWith(".package", at) && (end == source.length() || !isNameChar(source.charAt(end)));
+        }
+
+        private String name() {
+            int start = pos;
+            while (pos < source.length() && isNameChar(source.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("缺少名称");
+            }
+            return source.substring(start, pos);
+        }
+
+        private String[] parameterTypes() {
+            pos++;
+            String types = until(')').trim();
+            pos++;
+            if ("..".equals(types)) {
+                return ANY;
+            }
+            if (types.isEmpty()) {
+                return new String[0];
+            }
+            String[] names = types.split(",");
+            for (int i = 0; i < names.length; i++) {
+                names[i] = names[i].trim();
+            }
+            return names;
+        }
+
+        private String until(char c) {
+            int end = source.indexOf(c, pos);
+            if (end < 0) {
+                throw error("缺少'" + c + "'");
+            }
+            String s = source.substring(pos, end);
+            pos = end;
+            return s;
+        }
+
+        private boolean startsWith(String prefix) {
+            return source.startsWith(prefix, pos);
+        }
+
+        private static boolean isNameChar(char c) {
+            return Character.isJavaIdentifierPart(c) || c == '*';
+        }
+
+        static Pattern wildcard(String name) {
+            return Pattern.compile(Pattern.quote(name).replace("*", "\\E.*\\Q"));
+        }
+
+        private RuntimeException error(String message) {
+            return new RuntimeException(String.format("选择器[%s]第%d个字符处%s!", source, pos, message));
+        }
+    }
+}
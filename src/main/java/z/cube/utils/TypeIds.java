@@ -0,0 +1,43 @@
+package z.cube.utils;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类型编号
+ * 构建ClassTable时为其中出现的字段类型、返回类型、参数类型和注解类型分配int编号，表中只保存编号和编号对应的类型数组；
+ * 编号只在所属的表内有效，类型随表一起回收，不会阻止其他类加载器中的类被卸载
+ */
+final class TypeIds {
+    private final Map<Class<?>, Integer> ids = new IdentityHashMap<Class<?>, Integer>();
+    private final List<Class<?>> types = new ArrayList<Class<?>>();
+
+    /**
+     * 获取类型的编号，未分配时分配新编号
+     */
+    int id(Class<?> type) {
+        Integer id = ids.get(type);
+        if (id == null) {
+            id = types.size();
+            ids.put(type, id);
+            types.add(type);
+        }
+        return id;
+    }
+
+    /**
+     * 类型到编号的映射(按引用比较)
+     */
+    Map<Class<?>, Integer> toMap() {
+        return ids;
+    }
+
+    /**
+     * 按编号排列的类型
+     */
+    Class<?>[] toArray() {
+        return types.toArray(new Class<?>[types.size()]);
+    }
+}
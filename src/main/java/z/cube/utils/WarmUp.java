@@ -0,0 +1,150 @@
+package z.cube.utils;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预热任务
+ * 在后台重放{@link Profile}中的记录，重放失败(如类已被删除)的记录只计数，不会抛出异常
+ */
+public final class WarmUp {
+    private final List<String> lookups;
+    private final ClassLoader loader;
+    private final CountDownLatch done;
+    private final AtomicInteger remaining;
+    private final AtomicInteger replayed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final int parallelism;
+    private final long start;
+    private volatile long end;
+
+    private WarmUp(List<String> lookups, int parallelism) {
+        this.lookups = lookups;
+        this.parallelism = Math.max(1, Math.min(parallelism, lookups.size()));
+        this.done = new CountDownLatch(this.parallelism);
+        this.remaining = new AtomicInteger(this.parallelism);
+        ClassLoader l = Thread.currentThread().getContextClassLoader();
+        this.loader = l == null ? WarmUp.class.getClassLoader() : l;
+        this.start = System.nanoTime();
+        this.end = lookups.isEmpty() ? start : 0;
+    }
+
+    /**
+     * 使用默认线程池(JDK21及以上为虚拟线程)重放记录，完成后线程池自动关闭
+     */
+    static WarmUp start(List<String> lookups, int threads) {
+        if (threads < 1) {
+            throw new RuntimeException("预热线程数量必须大于0!");
+        }
+        ExecutorService executor = WarmUpPool.create(Math.min(threads, Math.max(1, lookups.size())));
+        try {
+            return start(lookups, executor, threads);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 将记录分成parallelism份提交到Executor
+     */
+    static WarmUp start(List<String> lookups, Executor executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new RuntimeException("预热并行度必须大于0!");
+        }
+        final WarmUp warmUp = new WarmUp(lookups, parallelism);
+        if (lookups.isEmpty()) {
+            warmUp.done.countDown();
+            return warmUp;
+        }
+        for (int i = 0; i < warmUp.parallelism; i++) {
+            final int from = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    warmUp.run(from);
+                }
+            });
+        }
+        return warmUp;
+    }
+
+    /**
+     * 按记录顺序交错分片，使靠前(先出现)的记录先被重放
+     */
+    private void run(int from) {
+        try {
+            for (int i = from; i < lookups.size(); i += parallelism) {
+                try {
+                    Profile.replay(lookups.get(i), loader);
+                    replayed.incrementAndGet();
+                } catch (Throwable e) {
+                    failed.incrementAndGet();
+                }
+            }
+        } finally {
+            if (remaining.decrementAndGet() == 0) {
+                end = System.nanoTime();
+            }
+            done.countDown();
+        }
+    }
+
+    /**
+     * 等待预热完成
+     */
+    public void await() throws InterruptedException {
+        done.await();
+    }
+
+    /**
+     * 等待预热完成
+     *
+     * @return true表示已完成，false表示超时
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    /**
+     * 是否已完成
+     */
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * 记录总数
+     */
+    public int total() {
+        return lookups.size();
+    }
+
+    /**
+     * 已成功重放的记录数
+     */
+    public int replayed() {
+        return replayed.get();
+    }
+
+    /**
+     * 重放失败的记录数
+     */
+    public int failed() {
+        return failed.get();
+    }
+
+    /**
+     * 预热耗时(毫秒)，未完成时为目前已耗费的时间
+     */
+    public double elapsedMillis() {
+        long e = isDone() ? end : System.nanoTime();
+        return (e - start) / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AT预热%s: %d/%d条记录，失败%d条，并行度%d，耗时%.2fms",
+                isDone() ? "完成" : "进行中", replayed(), total(), failed(), parallelism, elapsedMillis());
+    }
+}
@@ -0,0 +1,27 @@
+package z.cube.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预热使用的默认线程池
+ * JDK8为守护线程的固定线程池；JDK21及以上使用src/main/java21中的实现，每个任务一个虚拟线程
+ */
+final class WarmUpPool {
+    private WarmUpPool() {
+    }
+
+    static ExecutorService create(int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "at-warm-up-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
@@ -0,0 +1,17 @@
+package z.cube.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 预热使用的默认线程池(JDK21及以上)
+ * 每个任务一个虚拟线程，重放时加载类和读取class文件的阻塞不再占用平台线程
+ */
+final class WarmUpPool {
+    private WarmUpPool() {
+    }
+
+    static ExecutorService create(int threads) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("at-warm-up-", 1).factory());
+    }
+}
@@ -0,0 +1,99 @@
+package z.cube.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * 获取字段、方法和构造函数的MethodHandle(JDK9及以上)
+ * 通过privateLookupIn获取声明类的私有Lookup，字段通过VarHandle访问，不修改成员的accessible标记；
+ * 声明类所在模块未开放时退回到复制成员后setAccessible，传入的成员对象不会被修改
+ */
+final class Accessors {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private Accessors() {
+    }
+
+    private static MethodHandles.Lookup lookup(Class<?> clazz) {
+        try {
+            return MethodHandles.privateLookupIn(clazz, LOOKUP);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    static MethodHandle method(Method method) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = lookup(method.getDeclaringClass());
+        if (lookup == null) {
+            return LOOKUP.unreflect(accessible(method));
+        }
+        return lookup.unreflect(method);
+    }
+
+    static MethodHandle constructor(Constructor<?> constructor) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = lookup(constructor.getDeclaringClass());
+        if (lookup == null) {
+            return LOOKUP.unreflectConstructor(accessible(constructor));
+        }
+        return lookup.unreflectConstructor(constructor);
+    }
+
+    static MethodHandle getter(Field field) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = lookup(field.getDeclaringClass());
+        if (lookup == null) {
+            return LOOKUP.unreflectGetter(accessible(field));
+        }
+        return lookup.unreflectVarHandle(field).toMethodHandle(VarHandle.AccessMode.GET);
+    }
+
+    static MethodHandle setter(Field field) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = lookup(field.getDeclaringClass());
+        if (lookup == null) {
+            return LOOKUP.unreflectSetter(accessible(field));
+        }
+        return lookup.unreflectVarHandle(field).toMethodHandle(VarHandle.AccessMode.SET);
+    }
+
+    /**
+     * 复制方法后设置accessible，不修改调用方持有的对象
+     */
+    private static Method accessible(Method method) {
+        for (Method m : method.getDeclaringClass().getDeclaredMethods()) {
+            if (m.equals(method)) {
+                m.setAccessible(true);
+                return m;
+            }
+        }
+        throw new RuntimeException(String.format("无法找到方法%s!", method));
+    }
+
+    /**
+     * 复制构造函数后设置accessible，不修改调用方持有的对象
+     */
+    private static Constructor<?> accessible(Constructor<?> constructor) {
+        try {
+            Constructor<?> c = constructor.getDeclaringClass().getDeclaredConstructor(constructor.getParameterTypes());
+            c.setAccessible(true);
+            return c;
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 复制字段后设置accessible，不修改调用方持有的对象
+     */
+    private static Field accessible(Field field) {
+        try {
+            Field f = field.getDeclaringClass().getDeclaredField(field.getName());
+            f.setAccessible(true);
+            return f;
+        } catch (NoSuchFieldException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+}
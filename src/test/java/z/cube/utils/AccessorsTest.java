@@ -0,0 +1,84 @@
+package z.cube.utils;
+
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class AccessorsTest {
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public final void testField() throws Throwable {
+        Field field = Secret.class.getDeclaredField("value");
+        Secret secret = new Secret("a");
+        MethodHandle getter = Accessors.getter(field);
+        MethodHandle setter = Accessors.setter(field);
+        setter.invoke(secret, "b");
+        assertThat(getter.invoke(secret)).isEqualTo("b");
+
+        Field id = Secret.class.getDeclaredField("id");
+        assertThat(Accessors.getter(id).invoke(secret)).isEqualTo(7);
+        //两种实现都不修改传入字段的accessible标记
+        assertThat(field.isAccessible()).isFalse();
+    }
+
+    /**
+     * 从jar运行时应加载当前JDK对应的实现，从target/classes运行时只有JDK8的实现
+     */
+    @Test
+    public final void testVersionedClasses() {
+        String version = System.getProperty("java.specification.version");
+        int feature = Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+        String accessors = Accessors.class.getResource("Accessors.class").toString();
+        String warmUpPool = WarmUpPool.class.getResource("WarmUpPool.class").toString();
+        boolean jar = accessors.startsWith("jar:");
+        assertThat(accessors.contains("META-INF/versions/9/")).isEqualTo(jar && feature >= 9);
+        assertThat(warmUpPool.contains("META-INF/versions/21/")).isEqualTo(jar && feature >= 21);
+    }
+
+    @Test
+    public final void testMethodAndConstructor() throws Throwable {
+        Method method = Secret.class.getDeclaredMethod("reveal");
+        Constructor<Secret> constructor = Secret.class.getDeclaredConstructor(String.class);
+        Object secret = Accessors.constructor(constructor).invoke("c");
+        assertThat(Accessors.method(method).invoke(secret)).isEqualTo("c7");
+    }
+
+    @Test
+    public final void testWarmUpPool() throws Exception {
+        ExecutorService executor = WarmUpPool.create(2);
+        try {
+            Future<String> name = executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return Thread.currentThread().getName();
+                }
+            });
+            assertThat(name.get()).startsWith("at-warm-up-");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static class Secret {
+        private final int id = 7;
+        private String value;
+
+        private Secret(String value) {
+            this.value = value;
+        }
+
+        private String reveal() {
+            return value + id;
+        }
+    }
+}
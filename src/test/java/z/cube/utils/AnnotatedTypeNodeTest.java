@@ -0,0 +1,97 @@
+package z.cube.utils;
+
+import org.junit.Test;
+
+import javax.validation.constraints.NotNull;
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static z.cube.utils.AT.at;
+
+
+public class AnnotatedTypeNodeTest {
+
+    @Test
+    public final void testFieldTypeArg() {
+        TypeUseAnnotationTest member = at(Team.class).field("members")
+                .type().typeArg(0)
+                .annotation(TypeUseAnnotationTest.class).get();
+        assertThat(member.value()).isEqualTo("member");
+
+        TypeUseAnnotationTest score = at(Team.class).field("scores")
+                .type().typeArg(1)
+                .ai(TypeUseAnnotationTest.class);
+        assertThat(score.value()).isEqualTo("score");
+
+        assertThat(at(Team.class).field("scores").type().typeArg(0).has(TypeUseAnnotationTest.class)).isFalse();
+        assertThat(at(Team.class).field("members").type().has(TypeUseAnnotationTest.class)).isFalse();
+    }
+
+    @Test
+    public final void testArrayAndWildcard() {
+        assertThat(at(Team.class).field("aliases").type().ai(TypeUseAnnotationTest.class).value())
+                .isEqualTo("aliases");
+        assertThat(at(Team.class).field("aliases").type().componentType().ai(TypeUseAnnotationTest.class).value())
+                .isEqualTo("alias");
+
+        AnnotatedTypeNode numbers = AnnotatedTypeNode.of(field("numbers"));
+        assertThat(numbers.typeArg(0).bound(0).getAnnotation(TypeUseAnnotationTest.class).value())
+                .isEqualTo("bound");
+    }
+
+    @Test
+    public final void testMethodAndParam() {
+        List<java.lang.annotation.Annotation> deep = at(Team.class).method("groups", List.class, int.class)
+                .type().typeArg(1).typeArg(0)
+                .annotation().list();
+        assertThat(deep).hasSize(1);
+        assertThat(((TypeUseAnnotationTest) deep.get(0)).value()).isEqualTo("deep");
+
+        assertThat(at(Team.class).method("groups", List.class, int.class)
+                .arg(0).type().typeArg(0).ai(TypeUseAnnotationTest.class).value()).isEqualTo("in");
+        assertThat(at(Team.class).method("groups", List.class, int.class)
+                .param("names").type().typeArg(0).ai(TypeUseAnnotationTest.class).value()).isEqualTo("in");
+        assertThat(at(Team.class).method("groups", List.class, int.class)
+                .arg(1).type().isPresent(TypeUseAnnotationTest.class)).isFalse();
+    }
+
+    @Test
+    public final void testCached() {
+        AnnotatedTypeNode node = AnnotatedTypeNode.of(field("members"));
+        assertThat(AnnotatedTypeNode.of(field("members"))).isSameAs(node);
+        assertThat(ClassMetadata.of(Team.class).typeNodes(field("members"))[0]).isSameAs(node);
+        assertThat(node.typeArg(0).annotations()).isSameAs(node.typeArg(0).annotations());
+        assertThat(node.isAnnotated()).isTrue();
+        assertThat(node.typeArgCount()).isEqualTo(1);
+        assertThat(AnnotatedTypeNode.of(field("plain")).isAnnotated()).isFalse();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testTypeArgException() {
+        at(Team.class).field("plain").type().typeArg(1);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testComponentTypeException() {
+        at(Team.class).field("plain").type().componentType();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testTypeException() {
+        at(Person.class).type();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testTypeArgOnElementException() {
+        at(Person.class).field("name").annotation(NotNull.class).typeArg(0);
+    }
+
+    private static Field field(String name) {
+        try {
+            return Team.class.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
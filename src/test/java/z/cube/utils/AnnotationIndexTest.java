@@ -0,0 +1,230 @@
+package z.cube.utils;
+
+import org.junit.Test;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotNull;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSeeAlso;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Parameter;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+public class AnnotationIndexTest {
+
+    @Test
+    public final void testEqual() throws Exception {
+        AnnotationIndex index = new AnnotationIndex().register(Person.class);
+        assertThat(index.equal(XmlAttribute.class, "name", "NAME"))
+                .containsExactly(Person.class.getDeclaredField("name"));
+        assertThat(index.equal(XmlAttribute.class, "name", "AGE")).isEmpty();
+        assertThat(index.equal(Max.class, "value", 20)).hasSize(2);
+    }
+
+    @Test
+    public final void testRange() throws Exception {
+        AnnotationIndex index = new AnnotationIndex().register(Person.class, Order.class);
+        List<AnnotatedElement> small = index.range(Max.class, "value", null, 100);
+        assertThat(small).hasSize(2);
+        for (AnnotatedElement element : small) {
+            assertThat(element).isInstanceOf(Parameter.class);
+            assertThat(((Parameter) element).getName()).isEqualTo("age");
+        }
+        List<AnnotatedElement> all = index.range(Max.class, "value", 0L, null);
+        assertThat(all).hasSize(3);
+        //按属性值排序
+        assertThat(((Parameter) all.get(2)).getDeclaringExecutable().getDeclaringClass()).isEqualTo(Order.class);
+        assertThat(index.range(Max.class, "value", 20, 100)).hasSize(2);
+        assertThat(index.range(Max.class, "value", 21, 100)).isEmpty();
+    }
+
+    @Test
+    public final void testFractionalBound() {
+        AnnotationIndex index = new AnnotationIndex().register(Person.class, Order.class);
+        assertThat(index.range(Max.class, "value", null, 20.5)).hasSize(2);
+        assertThat(index.range(Max.class, "value", null, 20.0)).isEmpty();
+        assertThat(index.range(Max.class, "value", 19.5, null)).hasSize(3);
+        assertThat(index.range(Max.class, "value", 20.5, null)).hasSize(1);
+        assertThat(index.range(Max.class, "value", null, new BigDecimal("20.1"))).hasSize(2);
+        assertThat(index.equal(Max.class, "value", 20.0)).hasSize(2);
+        assertThat(index.equal(Max.class, "value", 20.5)).isEmpty();
+    }
+
+    @Test
+    public final void testPrefix() {
+        AnnotationIndex index = new AnnotationIndex().register(Person.class, Order.class);
+        assertThat(index.prefix(XmlRootElement.class, "name", "z.cube.")).containsExactly(Order.class, Person.class);
+        assertThat(index.prefix(XmlRootElement.class, "name", "z.cube.utils.P")).containsExactly(Person.class);
+        assertThat(index.prefix(XmlSeeAlso.class, "value", "z.cube.utils.Te")).containsExactly(Order.class);
+    }
+
+    @Test
+    public final void testArrayAttribute() {
+        AnnotationIndex index = new AnnotationIndex().register(Order.class);
+        assertThat(index.equal(XmlSeeAlso.class, "value", Person.class)).containsExactly(Order.class);
+        assertThat(index.equal(XmlSeeAlso.class, "value", Team.class)).containsExactly(Order.class);
+
+        index.register(Repeated.class);
+        assertThat(index.equal(XmlSeeAlso.class, "value", Person.class)).containsExactly(Order.class, Repeated.class);
+    }
+
+    @Test
+    public final void testIncremental() {
+        AnnotationIndex index = new AnnotationIndex().register(Person.class);
+        assertThat(index.annotated(NotNull.class)).hasSize(3);
+        assertThat(index.prefix(XmlRootElement.class, "name", "z.cube.")).hasSize(1);
+
+        index.register(Order.class, Person.class);
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.isRegistered(Order.class)).isTrue();
+        assertThat(index.annotated(NotNull.class)).hasSize(4);
+        assertThat(index.prefix(XmlRootElement.class, "name", "z.cube.")).hasSize(2);
+    }
+
+    @Test
+    public final void testScan() {
+        AnnotationIndex index = new AnnotationIndex().scan("z.cube.utils");
+        assertThat(index.isRegistered(Person.class)).isTrue();
+        assertThat(index.isRegistered(Order.class)).isTrue();
+        assertThat(index.isRegistered(AT.class)).isTrue();
+        assertThat(index.annotated(PackageAnnotationTest.class)).containsExactly(Person.class.getPackage());
+        assertThat(index.equal(XmlAttribute.class, "name", "NAME")).isNotEmpty();
+    }
+
+    @Test
+    public final void testLocalClassConstructor() {
+        class Local {
+            Local(@Max(5) Integer value) {
+            }
+        }
+        AnnotationIndex index = new AnnotationIndex().register(Local.class);
+        List<AnnotatedElement> found = index.equal(Max.class, "value", 5);
+        assertThat(found).hasSize(1);
+        assertThat(((Parameter) found.get(0)).getType()).isEqualTo(Integer.class);
+    }
+
+    @Test
+    public final void testMissingDependency() throws Exception {
+        Class<?> broken = new HidingClassLoader().loadClass(Broken.class.getName());
+        AnnotationIndex index = new AnnotationIndex().register(broken, Person.class);
+        assertThat(index.isRegistered(broken)).isFalse();
+        assertThat(index.isRegistered(Person.class)).isTrue();
+        assertThat(index.size()).isEqualTo(1);
+        //类上的注解在读取字段失败前已读取，但不会写入索引
+        assertThat(index.annotated(XmlRootElement.class)).containsExactly(Person.class);
+    }
+
+    @Test
+    public final void testScanPlusInPath() throws Exception {
+        String name = Missing.class.getName().replace('.', '/') + ".class";
+        File root = Files.createTempDirectory("a+b").toFile();
+        File file = new File(root, name);
+        file.getParentFile().mkdirs();
+        InputStream in = getClass().getClassLoader().getResourceAsStream(name);
+        try {
+            Files.copy(in, file.toPath());
+        } finally {
+            in.close();
+        }
+        URLClassLoader loader = new URLClassLoader(new URL[]{root.toURI().toURL()}, null);
+        Thread thread = Thread.currentThread();
+        ClassLoader old = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+        try {
+            AnnotationIndex index = new AnnotationIndex().scan("z.cube.utils");
+            assertThat(index.size()).isEqualTo(1);
+            assertThat(index.isRegistered(loader.loadClass(Missing.class.getName()))).isTrue();
+        } finally {
+            thread.setContextClassLoader(old);
+            loader.close();
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testUnknownAttributeException() {
+        new AnnotationIndex().register(Person.class).equal(XmlAttribute.class, "nmae", "NAME");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testValueTypeException() {
+        new AnnotationIndex().register(Person.class).range(Max.class, "value", "a", null);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testPrefixOnNumberException() {
+        new AnnotationIndex().register(Person.class).prefix(Max.class, "value", "1");
+    }
+
+    @XmlRootElement(name = "z.cube.utils.Broken")
+    public static class Broken {
+        private Missing missing;
+    }
+
+    public static class Missing {
+    }
+
+    /**
+     * 自行加载Broken，无法加载Missing
+     */
+    private static class HidingClassLoader extends ClassLoader {
+        HidingClassLoader() {
+            super(HidingClassLoader.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.equals(Missing.class.getName())) {
+                throw new ClassNotFoundException(name);
+            }
+            if (!name.equals(Broken.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+                    try {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        byte[] buffer = new byte[4096];
+                        for (int n; (n = in.read(buffer)) > 0; ) {
+                            out.write(buffer, 0, n);
+                        }
+                        c = defineClass(name, out.toByteArray(), 0, out.size());
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    } finally {
+                        try {
+                            in.close();
+                        } catch (IOException e) {
+                            //忽略
+                        }
+                    }
+                }
+                return c;
+            }
+        }
+    }
+
+    @XmlSeeAlso({Person.class, Person.class})
+    public static class Repeated {
+    }
+
+    @XmlRootElement(name = "z.cube.utils.Order")
+    @XmlSeeAlso({Person.class, Team.class})
+    public static class Order {
+        public Order(@NotNull @Max(1000) Integer amount) {
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package z.cube.utils;
+
+import org.junit.Test;
+
+import javax.xml.bind.annotation.*;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static z.cube.utils.AT.at;
+
+
+public class BinderTest {
+
+    @Test
+    public final void testPlan() {
+        Binder<Person> binder = Binder.of(Person.class);
+        assertThat(Binder.of(Person.class)).isSameAs(binder);
+        assertThat(binder.name()).isEqualTo("z.cube.utils.Person");
+        assertThat(binder.attributeNames()).containsOnly("NAME", "age");
+    }
+
+    @Test
+    public final void testXml() {
+        Binder<Person> binder = Binder.of(Person.class);
+        String xml = binder.toXml(new Person("Tom & \"Jerry\"", 18));
+        assertThat(xml).startsWith("<z.cube.utils.Person ").contains("NAME=\"Tom &amp; &quot;Jerry&quot;\"")
+                .contains("age=\"18\"");
+
+        Person person = binder.fromXml(xml);
+        assertThat(person.getName()).isEqualTo("Tom & \"Jerry\"");
+        assertThat(person.getAge()).isEqualTo(18);
+
+        assertThat(binder.toXml(new Person())).isEqualTo("<z.cube.utils.Person/>");
+    }
+
+    @Test
+    public final void testMap() {
+        Binder<Person> binder = Binder.of(Person.class);
+        Map<String, String> map = binder.toMap(new Person("Tom", 18));
+        assertThat(map).hasSize(2).containsEntry("NAME", "Tom").containsEntry("age", "18");
+        Person person = binder.fromMap(map);
+        assertThat(person.toString()).isEqualTo("Person{name='Tom', age=18}");
+    }
+
+    @Test
+    public final void testBatch() {
+        Binder<Person> binder = Binder.of(Person.class);
+        List<Person> persons = new ArrayList<Person>();
+        for (int i = 0; i < 100; i++) {
+            persons.add(new Person("p" + i, i));
+        }
+        StringWriter out = new StringWriter();
+        binder.writeAll(persons, "persons", out);
+        assertThat(out.toString()).contains("<persons>").contains("NAME=\"p99\"");
+
+        List<Person> read = binder.readAll(new StringReader(out.toString()));
+        assertThat(read).hasSize(100);
+        assertThat(read.get(42).toString()).isEqualTo(persons.get(42).toString());
+    }
+
+    @Test
+    public final void testProperty() {
+        Binder<Account> binder = Binder.of(Account.class);
+        assertThat(binder.name()).isEqualTo("account");
+        assertThat(binder.attributeNames()).containsOnly("ID", "level", "active");
+
+        Account account = new Account();
+        account.setId(7L);
+        account.setLevel(Level.GOLD);
+        account.setActive(true);
+        account.setSecret("s");
+        Map<String, String> map = binder.toMap(account);
+        assertThat(map).containsEntry("ID", "7").containsEntry("level", "GOLD").containsEntry("active", "true");
+
+        Account read = binder.fromXml(binder.toXml(account));
+        assertThat(read.getId()).isEqualTo(7L);
+        assertThat(read.getLevel()).isEqualTo(Level.GOLD);
+        assertThat(read.isActive()).isTrue();
+        assertThat(read.getSecret()).isNull();
+    }
+
+    @Test
+    public final void testInherited() {
+        Binder<GoldAccount> binder = Binder.of(GoldAccount.class);
+        assertThat(binder.attributeNames()).containsExactly("ID", "level", "active", "bonus");
+
+        GoldAccount account = new GoldAccount();
+        account.setId(9L);
+        account.setActive(true);
+        account.setBonus(3);
+        String xml = binder.toXml(account);
+        assertThat(xml).startsWith("<goldAccount ").contains("ID=\"9\"").contains("level=\"GOLD\"")
+                .contains("bonus=\"3\"");
+
+        GoldAccount read = binder.fromXml(xml);
+        assertThat(read.getId()).isEqualTo(9L);
+        assertThat(read.isActive()).isTrue();
+        assertThat(read.getBonus()).isEqualTo(3);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testRootElementException() {
+        Binder.of(Person.class).fromXml("<account age=\"1\"/>");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testConvertException() {
+        Binder.of(Person.class).fromXml("<z.cube.utils.Person age=\"old\"/>");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testUnsupportedAttributeException() {
+        Binder.of(Unsupported.class);
+    }
+
+    /**
+     * 对比编译后的绑定计划与每个对象都重新读取注解的反射写法
+     */
+    @Test
+    public final void testBenchmark() throws Exception {
+        List<Person> persons = new ArrayList<Person>();
+        for (int i = 0; i < 20000; i++) {
+            persons.add(new Person("p" + i, i));
+        }
+        Binder<Person> binder = Binder.of(Person.class);
+        for (int i = 0; i < 3; i++) {
+            binder.writeAll(persons, "persons", new StringWriter(1 << 20));
+            reflective(persons, new StringWriter(1 << 20));
+        }
+        long t0 = System.nanoTime();
+        StringWriter compiled = new StringWriter(1 << 20);
+        binder.writeAll(persons, "persons", compiled);
+        long t1 = System.nanoTime();
+        StringWriter reflected = new StringWriter(1 << 20);
+        reflective(persons, reflected);
+        long t2 = System.nanoTime();
+        assertThat(compiled.toString()).isEqualTo(reflected.toString());
+        System.out.println(String.format("写出%d个对象: 绑定计划%.2fms，反射读取注解%.2fms", persons.size(),
+                (t1 - t0) / 1e6, (t2 - t1) / 1e6));
+    }
+
+    /**
+     * 每个对象都通过AT读取注解的反射写法
+     */
+    private static void reflective(List<Person> persons, StringWriter out) throws Exception {
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.writeStartElement("persons");
+        for (Person person : persons) {
+            XmlRootElement root = at(person.getClass()).annotation(XmlRootElement.class).get();
+            writer.writeEmptyElement(root.name());
+            for (Field field : person.getClass().getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                XmlAttribute attribute = at(field).annotation(XmlAttribute.class).get();
+                field.setAccessible(true);
+                Object value = field.get(person);
+                if (value != null) {
+                    writer.writeAttribute(attribute == null ? field.getName() : attribute.name(), value.toString());
+                }
+            }
+        }
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+    }
+
+    public enum Level {
+        SILVER, GOLD
+    }
+
+    @XmlRootElement
+    @XmlAccessorType(XmlAccessType.PROPERTY)
+    public static class Account {
+        private Long id;
+        private Level level;
+        private boolean active;
+        private String secret;
+
+        @XmlAttribute(name = "ID")
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public Level getLevel() {
+            return level;
+        }
+
+        public void setLevel(Level level) {
+            this.level = level;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        @XmlTransient
+        public String getSecret() {
+            return secret;
+        }
+
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+    }
+
+    @XmlRootElement
+    @XmlAccessorType(XmlAccessType.PROPERTY)
+    public static class GoldAccount extends Account {
+        private int bonus;
+
+        public int getBonus() {
+            return bonus;
+        }
+
+        public void setBonus(int bonus) {
+            this.bonus = bonus;
+        }
+
+        @Override
+        public Level getLevel() {
+            return Level.GOLD;
+        }
+    }
+
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class Unsupported {
+        @XmlAttribute
+        private List<String> tags;
+    }
+}
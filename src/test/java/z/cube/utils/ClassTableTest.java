@@ -0,0 +1,243 @@
+package z.cube.utils;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotNull;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static z.cube.utils.AT.at;
+
+
+public class ClassTableTest {
+
+    @Test
+    public final void testMembers() {
+        ClassTable table = at(Person.class).table();
+        assertThat(ClassTable.of(Person.class)).isSameAs(table);
+        assertThat(table.size()).isEqualTo(2 + 6 + 2);
+
+        int name = table.field("name");
+        assertThat(table.isField(name)).isTrue();
+        assertThat(table.name(name)).isEqualTo("name");
+        assertThat(table.type(name)).isEqualTo(String.class);
+        assertThat(Modifier.isPrivate(table.modifiers(name))).isTrue();
+        assertThat(table.field("bean")).isEqualTo(-1);
+
+        int setName = table.method("setName", String.class);
+        assertThat(table.isMethod(setName)).isTrue();
+        assertThat(table.type(setName)).isEqualTo(void.class);
+        assertThat(table.method("setName", Integer.class)).isEqualTo(-1);
+
+        int constructor = table.constructor(String.class, Integer.class);
+        assertThat(table.isConstructor(constructor)).isTrue();
+        assertThat(table.name(constructor)).isEqualTo("<init>");
+        assertThat(table.parameterCount(constructor)).isEqualTo(2);
+        assertThat(table.constructor()).isNotEqualTo(-1);
+    }
+
+    @Test
+    public final void testParameters() {
+        ClassTable table = ClassTable.of(Person.class);
+        int mutlEle = table.method("mutlEle", String.class, Integer.class);
+        int age = table.parameter(mutlEle, 1);
+        assertThat(table.isParameter(age)).isTrue();
+        assertThat(table.type(age)).isEqualTo(Integer.class);
+        assertThat(table.owner(age)).isEqualTo(mutlEle);
+        assertThat(table.index(age)).isEqualTo(1);
+        assertThat(table.parameterCount()).isEqualTo(1 + 1 + 2 + 2);
+        for (int e = table.size(); e < table.size() + table.parameterCount(); e++) {
+            int owner = table.owner(e);
+            assertThat(table.parameter(owner, table.index(e))).isEqualTo(e);
+        }
+    }
+
+    @Test
+    public final void testAnnotations() {
+        ClassTable table = ClassTable.of(Person.class);
+        int name = table.field("name");
+        assertThat(table.has(name, XmlAttribute.class)).isTrue();
+        assertThat(table.has(name, Max.class)).isFalse();
+        List<Class<?>> types = new ArrayList<Class<?>>(table.annotationTypes(name));
+        assertThat(types).containsOnly(XmlAttribute.class, Deprecated.class);
+        assertThat(table.has(XmlRootElement.class)).isTrue();
+
+        int constructor = table.constructor(String.class, Integer.class);
+        int age = table.parameter(constructor, 1);
+        Max max = table.annotation(age, Max.class);
+        assertThat(max.value()).isEqualTo(20);
+        NotNull nn = table.annotation(age, NotNull.class);
+        assertThat(nn).isNull();
+
+        int[] notNull = table.select(NotNull.class);
+        assertThat(notNull).hasSize(3);
+        for (int e : notNull) {
+            assertThat(table.isParameter(e)).isTrue();
+            assertThat(table.at(e).has(NotNull.class)).isTrue();
+        }
+        assertThat(table.select(Test.class)).isEmpty();
+    }
+
+    @Test
+    public final void testLocalClassConstructor() {
+        class Local {
+            Local(@Max(5) Integer value, @NotNull String name) {
+            }
+        }
+        ClassTable table = ClassTable.of(Local.class);
+        int constructor = table.constructor(ClassTableTest.class, Integer.class, String.class);
+        for (int i = 0; i < table.parameterCount(constructor); i++) {
+            int e = table.parameter(constructor, i);
+            for (Class<? extends Annotation> type : Arrays.asList(Max.class, NotNull.class)) {
+                assertThat(table.annotation(e, type) != null).isEqualTo(table.has(e, type));
+            }
+        }
+        assertThat(table.annotation(table.parameter(constructor, 1), Max.class).value()).isEqualTo(5);
+        assertThat(table.annotation(table.parameter(constructor, 2), NotNull.class)).isNotNull();
+        assertThat(table.at(table.parameter(constructor, 0)).has(Max.class)).isFalse();
+    }
+
+    @Test
+    public final void testLazyReflection() throws Exception {
+        ClassTable table = ClassTable.of(Person.class);
+        Field field = table.toField(table.field("name"));
+        assertThat(field).isEqualTo(Person.class.getDeclaredField("name"));
+        Method method = table.toMethod(table.method("setName", String.class));
+        assertThat(method).isEqualTo(Person.class.getDeclaredMethod("setName", String.class));
+        Constructor<?> constructor = table.toConstructor(table.constructor());
+        assertThat(constructor).isEqualTo(Person.class.getConstructor());
+        XmlAttribute att = table.at(table.field("name")).annotation(XmlAttribute.class).get();
+        assertThat(att.name()).isEqualTo("NAME");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testHandleException() {
+        ClassTable.of(Person.class).name(100);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testToFieldException() {
+        ClassTable table = ClassTable.of(Person.class);
+        table.toField(table.method("getName"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testOwnerException() {
+        ClassTable.of(Person.class).owner(0);
+    }
+
+    @Test
+    public final void testUnload() throws Exception {
+        WeakReference<ClassLoader> loader = loadTable();
+        for (int i = 0; i < 20 && loader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        //System.gc()不保证回收，未回收时跳过而不是失败
+        Assume.assumeTrue(loader.get() == null);
+    }
+
+    /**
+     * 在独立的类加载器中加载Person并构建成员表，返回后不再引用该类加载器
+     */
+    private static WeakReference<ClassLoader> loadTable() throws Exception {
+        URL location = Person.class.getProtectionDomain().getCodeSource().getLocation();
+        URLClassLoader loader = new URLClassLoader(new URL[]{location}, null);
+        Class<?> clazz = loader.loadClass(Person.class.getName());
+        ClassTable table = ClassTable.of(clazz);
+        assertThat(table.type(table.constructor())).isSameAs(clazz);
+        assertThat(table.type(table.field("name"))).isEqualTo(String.class);
+        return new WeakReference<ClassLoader>(loader);
+    }
+
+    /**
+     * 对比成员表与保留Field、Method、Constructor、注解和AT对象的内存占用，只输出结果
+     */
+    @Test
+    public final void testHeapUsage() throws Exception {
+        Class<?>[] classes = {String.class, Thread.class, HashMap.class, ArrayList.class, ConcurrentHashMap.class,
+                Collections.class, Arrays.class, Character.class, Integer.class, Long.class, BigDecimal.class,
+                BigInteger.class, StringBuilder.class, AT.class, Binder.class, Selector.class, Property.class,
+                Person.class, Team.class};
+        int copies = 100;
+        for (Class<?> clazz : classes) {
+            ClassTable.build(clazz);
+        }
+
+        long base = usedMemory();
+        List<Object> objects = new ArrayList<Object>();
+        int elements = 0;
+        for (int i = 0; i < copies; i++) {
+            for (Class<?> clazz : classes) {
+                elements += objects(clazz, objects);
+            }
+        }
+        long objectBytes = usedMemory() - base;
+        assertThat(objects).isNotEmpty();
+        objects = null;
+
+        base = usedMemory();
+        List<ClassTable> tables = new ArrayList<ClassTable>();
+        for (int i = 0; i < copies; i++) {
+            for (Class<?> clazz : classes) {
+                tables.add(ClassTable.build(clazz));
+            }
+        }
+        long tableBytes = usedMemory() - base;
+        assertThat(tables).hasSize(copies * classes.length);
+
+        System.out.println(String.format("%d个类，%d个元素: 反射对象和AT %.2fMB，成员表 %.2fMB",
+                copies * classes.length, elements, objectBytes / 1048576.0, tableBytes / 1048576.0));
+    }
+
+    /**
+     * 每个元素一个反射对象和AT对象，并保留读取过的注解
+     */
+    private static int objects(Class<?> clazz, List<Object> objects) {
+        int count = 0;
+        for (AT at : at(clazz).fields()) {
+            objects.add(at);
+            objects.add(((Field) at.object()).getDeclaredAnnotations());
+            count++;
+        }
+        for (Method method : clazz.getDeclaredMethods()) {
+            objects.add(at(method));
+            objects.add(method.getDeclaredAnnotations());
+            Annotation[][] parameters = method.getParameterAnnotations();
+            objects.add(parameters);
+            count += 1 + parameters.length;
+        }
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            objects.add(at(constructor));
+            objects.add(constructor.getDeclaredAnnotations());
+            Annotation[][] parameters = constructor.getParameterAnnotations();
+            objects.add(parameters);
+            count += 1 + parameters.length;
+        }
+        return count;
+    }
+
+    private static long usedMemory() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,172 @@
+package z.cube.utils;
+
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static z.cube.utils.AT.at;
+
+
+public class InvokerTest {
+
+    @Test
+    public final void testInvoke() {
+        Person person = new Person();
+        Map<String, Object> args = new HashMap<String, Object>();
+        args.put("age", 18);
+        args.put("name", "Tom");
+        Object result = at(Person.class).method("mutlEle", String.class, Integer.class).invoker().invoke(person, args);
+        assertThat(result).isNull();
+        assertThat(person.toString()).isEqualTo("Person{name='Tom', age=18}");
+    }
+
+    @Test
+    public final void testNewInstance() {
+        Map<String, Object> args = new HashMap<String, Object>();
+        args.put("name", "Tom");
+        args.put("age", "20");
+        Person person = at(Person.class).constructor(String.class, Integer.class).invoker().newInstance(args);
+        assertThat(person.toString()).isEqualTo("Person{name='Tom', age=20}");
+    }
+
+    @Test
+    public final void testDeclaredConstructor() {
+        Map<String, Object> args = new HashMap<String, Object>();
+        args.put("amount", "12.50");
+        Money money = at(Money.class).declaredConstructor(BigDecimal.class, String.class).invoker().newInstance(args);
+        assertThat(money.amount).isEqualTo(new BigDecimal("12.50"));
+        assertThat(money.currency).isEqualTo("CNY");
+    }
+
+    @Test
+    public final void testDefaultAndConverter() throws Exception {
+        Method scale = Money.class.getDeclaredMethod("scale", int.class, int.class, RoundingMode.class);
+        Invoker invoker = Invoker.of(scale);
+        assertThat(invoker.parameterNames()).containsExactly("value", "times", "mode");
+
+        Map<String, Object> args = new HashMap<String, Object>();
+        args.put("value", "7");
+        assertThat(invoker.invoke(null, args)).isEqualTo("14 DOWN");
+        args.put("times", 3);
+        args.put("mode", "up");
+        assertThat(invoker.invoke(null, args)).isEqualTo("21 UP");
+    }
+
+    @Test
+    public final void testCached() throws Exception {
+        Constructor<Person> constructor = Person.class.getConstructor(String.class, Integer.class);
+        assertThat(Invoker.of(constructor)).isSameAs(at(constructor).invoker());
+        assertThat(at(Person.class).declaredConstructor()).isNotNull();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testMissingPrimitiveException() throws Exception {
+        Method scale = Money.class.getDeclaredMethod("scale", int.class, int.class, RoundingMode.class);
+        Invoker.of(scale).invoke(null, new HashMap<String, Object>());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testNullPrimitiveException() throws Exception {
+        Method scale = Money.class.getDeclaredMethod("scale", int.class, int.class, RoundingMode.class);
+        Map<String, Object> args = new HashMap<String, Object>();
+        args.put("value", null);
+        Invoker.of(scale).invoke(null, args);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testUnknownNameException() {
+        Map<String, Object> args = new HashMap<String, Object>();
+        args.put("nmae", "Tom");
+        at(Person.class).method("setName", String.class).invoker().invoke(new Person(), args);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testNewInstanceOnMethodException() {
+        at(Person.class).method("setName", String.class).invoker().newInstance(new HashMap<String, Object>());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testNonPublicConstructorException() {
+        at(Money.class).constructor(BigDecimal.class, String.class);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testInvokerOnFieldException() {
+        at(Person.class).field("name").invoker();
+    }
+
+    /**
+     * 对比调用计划与每次调用都解析参数名称再通过Method.invoke调用的反射写法
+     */
+    @Test
+    public final void testBenchmark() throws Exception {
+        Method method = Person.class.getDeclaredMethod("mutlEle", String.class, Integer.class);
+        Invoker invoker = Invoker.of(method);
+        Person person = new Person();
+        Map<String, Object> args = new HashMap<String, Object>();
+        args.put("name", "Tom");
+        args.put("age", 18);
+        int count = 50000;
+        for (int i = 0; i < 3; i++) {
+            compiled(invoker, person, args, count);
+            reflective(method, person, args, count);
+        }
+        long t0 = System.nanoTime();
+        compiled(invoker, person, args, count);
+        long t1 = System.nanoTime();
+        reflective(method, person, args, count);
+        long t2 = System.nanoTime();
+        System.out.println(String.format("按名称调用%d次: 调用计划%.2fms，反射解析参数名称%.2fms", count,
+                (t1 - t0) / 1e6, (t2 - t1) / 1e6));
+    }
+
+    private static void compiled(Invoker invoker, Person person, Map<String, Object> args, int count) {
+        for (int i = 0; i < count; i++) {
+            invoker.invoke(person, args);
+        }
+    }
+
+    private static void reflective(Method method, Person person, Map<String, Object> args, int count)
+            throws Exception {
+        for (int i = 0; i < count; i++) {
+            Parameter[] parameters = method.getParameters();
+            Object[] values = new Object[parameters.length];
+            for (int j = 0; j < parameters.length; j++) {
+                values[j] = args.get(parameters[j].getName());
+            }
+            method.invoke(person, values);
+        }
+    }
+
+    public enum RoundingMode {
+        UP, DOWN
+    }
+
+    public static class UpperCase implements ArgumentConverter {
+        @Override
+        public Object convert(Object value, Class<?> type) {
+            return value == null ? null : RoundingMode.valueOf(value.toString().toUpperCase());
+        }
+    }
+
+    public static class Money {
+        private final BigDecimal amount;
+        private final String currency;
+
+        private Money(BigDecimal amount, @DefaultValue("CNY") String currency) {
+            this.amount = amount;
+            this.currency = currency;
+        }
+
+        static String scale(int value, @DefaultValue("2") int times,
+                            @ConvertWith(UpperCase.class) @DefaultValue("down") RoundingMode mode) {
+            return value * times + " " + mode;
+        }
+    }
+}
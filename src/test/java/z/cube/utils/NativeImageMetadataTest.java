@@ -0,0 +1,154 @@
+package z.cube.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotNull;
+import javax.xml.bind.annotation.XmlAttribute;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static z.cube.utils.AT.at;
+
+
+public class NativeImageMetadataTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private NativeImageMetadata metadata;
+
+    private ATTracer previous;
+
+    @Before
+    public void setUp() throws Exception {
+        metadata = new NativeImageMetadata();
+        previous = AT.trace(metadata);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        AT.trace(previous);
+    }
+
+    @Test
+    public final void testTrace() {
+        at(Person.class).field("name").annotation(XmlAttribute.class).get();
+        at(Person.class).method("setName", String.class).param("name").annotation(NotNull.class).get();
+        at(Person.class).constructor(String.class, Integer.class).arg(1).ai(Max.class);
+
+        String reflect = metadata.reflectConfig();
+        assertThat(reflect).contains("\"name\": \"z.cube.utils.Person\"");
+        assertThat(reflect).contains("{\"name\": \"name\"}");
+        assertThat(reflect).contains("{\"name\": \"setName\", \"parameterTypes\": [\"java.lang.String\"]}");
+        assertThat(reflect).contains("{\"name\": \"<init>\", \"parameterTypes\": [\"java.lang.String\", \"java.lang.Integer\"]}");
+        assertThat(reflect).contains("\"name\": \"javax.validation.constraints.Max\",\n    \"allDeclaredMethods\": true");
+        assertThat(reflect).doesNotContain("allDeclaredFields");
+
+        assertThat(metadata.parameterNamesProperties())
+                .isEqualTo("z.cube.utils.Person#setName(java.lang.String)=name\n");
+
+        String reachability = metadata.reachabilityMetadata();
+        assertThat(reachability).contains("\"type\": \"z.cube.utils.Person\"");
+        assertThat(reachability).contains("{\"glob\": \"META-INF/at/parameter-names.properties\"}");
+    }
+
+    @Test
+    public final void testTraceCachedSelector() {
+        AT.trace(previous);
+        Selector selector = Selector.compile("Person#setName(String)/name@NotNull");
+        assertThat(selector.select(Person.class).isPresent()).isTrue();
+        AT.trace(metadata);
+        assertThat(selector.select(Person.class).isPresent()).isTrue();
+
+        assertThat(metadata.reflectConfig())
+                .contains("{\"name\": \"setName\", \"parameterTypes\": [\"java.lang.String\"]}")
+                .contains("\"name\": \"javax.validation.constraints.NotNull\"");
+        assertThat(metadata.parameterNamesProperties())
+                .isEqualTo("z.cube.utils.Person#setName(java.lang.String)=name\n");
+    }
+
+    @Test
+    public final void testTraceType() {
+        AT.trace(previous);
+        AT members = at(Team.class).field("members");
+        AT.trace(metadata);
+        members.type().typeArg(0).has(TypeUseAnnotationTest.class);
+
+        assertThat(metadata.reflectConfig()).contains("\"name\": \"z.cube.utils.Team\"")
+                .contains("{\"name\": \"members\"}");
+    }
+
+    @Test
+    public final void testTraceMembersAndPackage() {
+        at(Person.class).fields(at -> at.has(XmlAttribute.class));
+        at(Person.class).package_().annotation(PackageAnnotationTest.class).get();
+
+        String reflect = metadata.reflectConfig();
+        assertThat(reflect).contains("\"name\": \"z.cube.utils.Person\",\n    \"allDeclaredFields\": true");
+        assertThat(reflect).contains("\"name\": \"z.cube.utils.package-info\"");
+    }
+
+    @Test
+    public final void testRegister() throws Exception {
+        AT.trace(previous);
+        metadata.register(Person.class);
+
+        String reflect = metadata.reflectConfig();
+        assertThat(reflect).contains("\"allDeclaredFields\": true,\n    \"allDeclaredMethods\": true,\n"
+                + "    \"allDeclaredConstructors\": true");
+        assertThat(reflect).contains("javax.xml.bind.annotation.XmlRootElement");
+        assertThat(reflect).contains("javax.persistence.Transient");
+
+        Map<String, String[]> names = ParameterNames.load(
+                new ByteArrayInputStream(metadata.parameterNamesProperties().getBytes("ISO-8859-1")));
+        assertThat(names.get("z.cube.utils.Person#<init>(java.lang.String,java.lang.Integer)"))
+                .containsExactly("name", "age");
+        assertThat(names.get("z.cube.utils.Person#mutlEle(java.lang.String,java.lang.Integer)"))
+                .containsExactly("name", "age");
+        assertThat(names).doesNotContainKey("z.cube.utils.Person#getName()");
+    }
+
+    @Test
+    public final void testWrite() throws Exception {
+        metadata.register(Person.class);
+        File dir = folder.getRoot();
+        metadata.write(dir, "bqd.zcube/AT");
+
+        assertThat(new File(dir, "META-INF/native-image/bqd.zcube/AT/reflect-config.json")).exists();
+        assertThat(new File(dir, "META-INF/native-image/bqd.zcube/AT/resource-config.json")).exists();
+        assertThat(new File(dir, "META-INF/native-image/bqd.zcube/AT/reachability-metadata.json")).exists();
+        FileInputStream in = new FileInputStream(new File(dir, "META-INF/at/parameter-names.properties"));
+        try {
+            assertThat(ParameterNames.load(in).get("z.cube.utils.Person#setName(java.lang.String)"))
+                    .containsExactly("name");
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public final void testKey() throws Exception {
+        assertThat(ParameterNames.key(String.class.getMethod("split", String.class, int.class)))
+                .isEqualTo("java.lang.String#split(java.lang.String,int)");
+        assertThat(ParameterNames.key(String.class.getConstructor(char[].class)))
+                .isEqualTo("java.lang.String#<init>(char[])");
+    }
+
+    @Test
+    public final void testParameterNamesCached() throws Exception {
+        Method setName = Person.class.getDeclaredMethod("setName", String.class);
+        String[] names = ParameterNames.of(setName);
+        assertThat(names).containsExactly("name");
+        assertThat(ParameterNames.of(setName)).isSameAs(names);
+        assertThat(ClassMetadata.of(Person.class).parameterNames(setName)).isSameAs(names);
+    }
+}
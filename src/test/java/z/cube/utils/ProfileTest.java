@@ -0,0 +1,211 @@
+package z.cube.utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotNull;
+import javax.xml.bind.annotation.XmlAttribute;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static z.cube.utils.AT.at;
+
+
+public class ProfileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ATTracer previous;
+
+    @Before
+    public void setUp() throws Exception {
+        previous = AT.trace(null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        AT.trace(previous);
+    }
+
+    @Test
+    public final void testRecord() throws Exception {
+        Profile profile = new Profile();
+        AT.trace(profile);
+        at(Person.class).method("setName", String.class).param("name").annotation(NotNull.class).get();
+        at(Person.class).method("setName", String.class).param("name").annotation(NotNull.class).get();
+        at(Person.class).fields(at -> at.has(XmlAttribute.class));
+        AT.trace(null);
+
+        List<String> lookups = profile.lookups();
+        assertThat(lookups.subList(0, 5)).containsExactly(
+                "class z.cube.utils.Person",
+                "method z.cube.utils.Person#setName(java.lang.String)",
+                "params z.cube.utils.Person#setName(java.lang.String)",
+                "annotation javax.validation.constraints.NotNull",
+                "fields z.cube.utils.Person");
+        assertThat(lookups.subList(5, lookups.size())).containsOnly(
+                "field z.cube.utils.Person#name",
+                "field z.cube.utils.Person#age",
+                "annotation javax.xml.bind.annotation.XmlAttribute");
+
+        File file = folder.newFile("at.profile");
+        profile.write(file);
+        assertThat(Profile.read(file).lookups()).isEqualTo(profile.lookups());
+    }
+
+    @Test
+    public final void testRecordType() throws Exception {
+        AT members = at(Team.class).field("members");
+        AT groups = at(Team.class).method("groups", List.class, int.class);
+        Profile profile = new Profile();
+        AT.trace(profile);
+        members.type();
+        groups.arg(0).type();
+        AT.trace(null);
+
+        assertThat(profile.lookups()).containsExactly(
+                "type z.cube.utils.Team#members",
+                "type z.cube.utils.Team#groups(java.util.List,int)");
+        WarmUp warmUp = Profile.read(new StringReader(profile.toString())).warmUp(1);
+        warmUp.await();
+        assertThat(warmUp.replayed()).isEqualTo(2);
+    }
+
+    @Test
+    public final void testWarmUp() throws Exception {
+        Profile profile = Profile.read(new StringReader("# AT profile\n"
+                + "class z.cube.utils.Person\n"
+                + "field z.cube.utils.Person#name\n"
+                + "constructor z.cube.utils.Person#<init>(java.lang.String,java.lang.Integer)\n"
+                + "params z.cube.utils.Person#<init>(java.lang.String,java.lang.Integer)\n"
+                + "method z.cube.utils.Team#groups(java.util.List,int)\n"
+                + "annotation javax.validation.constraints.Max\n"
+                + "package z.cube.utils\n"
+                + "methods z.cube.utils.Person\n"
+                + "class z.cube.utils.Removed\n"
+                + "field z.cube.utils.Person#removed\n"));
+        WarmUp warmUp = profile.warmUp(3);
+        assertThat(warmUp.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(warmUp.isDone()).isTrue();
+        assertThat(warmUp.total()).isEqualTo(10);
+        assertThat(warmUp.replayed()).isEqualTo(8);
+        assertThat(warmUp.failed()).isEqualTo(2);
+        System.out.println(warmUp);
+    }
+
+    @Test
+    public final void testReplayPackageWithLoader() throws Exception {
+        final List<String> loaded = new ArrayList<String>();
+        ClassLoader loader = new ClassLoader(ProfileTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                loaded.add(name);
+                return super.loadClass(name, resolve);
+            }
+        };
+        Profile.replay("package z.cube.utils", loader);
+        assertThat(loaded).contains("z.cube.utils.package-info");
+        //没有package-info的包无需预热
+        Profile.replay("package org.junit.rules", loader);
+    }
+
+    @Test
+    public final void testWarmUpOnExecutor() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            WarmUp warmUp = Profile.read(new StringReader("class z.cube.utils.Person\n")).warmUp(executor, 4);
+            warmUp.await();
+            assertThat(warmUp.replayed()).isEqualTo(1);
+            WarmUp empty = new Profile().warmUp(executor, 4);
+            assertThat(empty.isDone()).isTrue();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 对比首次调用的延迟：ColdA用于录制，包含生成注解代理类等JVM一次性开销；
+     * ColdC在ColdA之后调用且没有预热，作为对照；ColdB使用ColdA录制的记录预热
+     */
+    @Test
+    public final void testFirstRequestLatency() throws Exception {
+        Profile profile = new Profile();
+        AT.trace(profile);
+        long t0 = System.nanoTime();
+        firstRequest(ColdA.class);
+        long first = System.nanoTime() - t0;
+        AT.trace(null);
+
+        long t = System.nanoTime();
+        firstRequest(ColdC.class);
+        long cold = System.nanoTime() - t;
+
+        String recorded = profile.toString().replace(ColdA.class.getName(), ColdB.class.getName());
+        WarmUp warmUp = Profile.read(new StringReader(recorded)).warmUp(2);
+        warmUp.await();
+        assertThat(warmUp.failed()).isEqualTo(0);
+
+        long t1 = System.nanoTime();
+        firstRequest(ColdB.class);
+        long warm = System.nanoTime() - t1;
+        System.out.println(warmUp);
+        System.out.println(String.format("首次调用延迟: 录制%.1fus，未预热%.1fus，预热后%.1fus", first / 1e3,
+                cold / 1e3, warm / 1e3));
+    }
+
+    private static void firstRequest(Class<?> clazz) {
+        List<AT> fields = at(clazz).fields(at -> at.has(XmlAttribute.class));
+        assertThat(fields).hasSize(1);
+        assertThat(at(clazz).method("update", String.class, Integer.class).param("name")
+                .has(NotNull.class)).isTrue();
+        assertThat(at(clazz).constructor(String.class, Integer.class).param("age")
+                .ai(Max.class).value()).isEqualTo(99);
+    }
+
+    public static class ColdA {
+        @XmlAttribute
+        private String name;
+        private Integer age;
+
+        public ColdA(String name, @Max(99) Integer age) {
+        }
+
+        public void update(@NotNull String name, Integer age) {
+        }
+    }
+
+    public static class ColdB {
+        @XmlAttribute
+        private String name;
+        private Integer age;
+
+        public ColdB(String name, @Max(99) Integer age) {
+        }
+
+        public void update(@NotNull String name, Integer age) {
+        }
+    }
+
+    public static class ColdC {
+        @XmlAttribute
+        private String name;
+        private Integer age;
+
+        public ColdC(String name, @Max(99) Integer age) {
+        }
+
+        public void update(@NotNull String name, Integer age) {
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package z.cube.utils;
+
+import org.junit.Test;
+
+import javax.persistence.Transient;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotNull;
+import javax.xml.bind.annotation.XmlAttribute;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static z.cube.utils.AT.at;
+
+
+public class PropertyTest {
+
+    @Test
+    public final void testMergedAnnotations() {
+        XmlAttribute att = at(Person.class).property("name").annotation(XmlAttribute.class).get();
+        assertThat(att.name()).isEqualTo("NAME");
+        assertThat(at(Person.class).property("name").has(Transient.class)).isTrue();
+        assertThat(at(Person.class).property("name").has(NotNull.class)).isTrue();
+
+        List<Annotation> anns = at(Person.class).property("name").annotation().list();
+        assertThat(anns).hasSize(4);
+        for (Annotation ann : anns) {
+            assertThat(ann).isInstanceOfAny(XmlAttribute.class, Deprecated.class, Transient.class, NotNull.class);
+        }
+    }
+
+    @Test
+    public final void testPrecedence() throws Exception {
+        Property name = at(Person.class).property("name").asProperty();
+        //@Deprecated同时出现在字段和getter上，取字段上的
+        assertThat(name.source(Deprecated.class)).isInstanceOf(Field.class);
+        assertThat(name.source(Transient.class)).isEqualTo(Person.class.getDeclaredMethod("getName"));
+        assertThat(name.source(NotNull.class)).isEqualTo(Person.class.getDeclaredMethod("setName", String.class));
+        assertThat(name.source(Max.class)).isNull();
+    }
+
+    @Test
+    public final void testProperties() {
+        assertThat(at(Person.class).properties()).hasSize(2);
+        List<AT> notNull = at(Person.class).properties(at -> at.has(NotNull.class));
+        assertThat(notNull).hasSize(1);
+        assertThat(notNull.get(0).asProperty().getName()).isEqualTo("name");
+        assertThat(at(Person.class).properties(at -> at.has(XmlAttribute.class))).hasSize(1);
+    }
+
+    @Test
+    public final void testAccessors() {
+        Property name = at(Person.class).property("name").asProperty();
+        Property age = at(Person.class).property("age").asProperty();
+        assertThat(name.getType()).isEqualTo(String.class);
+        assertThat(age.getType()).isEqualTo(Integer.class);
+        assertThat(name.isReadable()).isTrue();
+        assertThat(name.isWritable()).isTrue();
+
+        Person person = new Person("Tom", 18);
+        assertThat(name.get(person)).isEqualTo("Tom");
+        age.set(person, 20);
+        assertThat(person.getAge()).isEqualTo(20);
+    }
+
+    @Test
+    public final void testCached() {
+        assertThat(at(Person.class).property("name").asProperty())
+                .isSameAs(at(Person.class).property("name").asProperty());
+    }
+
+    @Test
+    public final void testReadOnly() {
+        Property size = at(Bean.class).property("size").asProperty();
+        assertThat(size.getField()).isNull();
+        assertThat(size.getSetter()).isNull();
+        assertThat(size.isWritable()).isFalse();
+        assertThat(size.get(new Bean())).isEqualTo(3);
+        Method getter = size.getGetter();
+        assertThat(getter.getName()).isEqualTo("getSize");
+        assertThat(at(Bean.class).properties()).hasSize(1);
+    }
+
+    @Test
+    public final void testJdkClasses() {
+        Map<String, AT> properties = new HashMap<String, AT>();
+        for (AT at : at(Date.class).properties()) {
+            properties.put(at.asProperty().getName(), at);
+        }
+        assertThat(properties).containsKey("time").doesNotContainKey("timeImpl");
+        assertThat(properties.get("time").asProperty().get(new Date(5))).isEqualTo(5L);
+
+        Property name = at(Thread.class).property("name").asProperty();
+        assertThat(name.isReadable()).isTrue();
+        assertThat(name.get(Thread.currentThread())).isEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public final void testAccessibleUnchanged() {
+        Property count = at(Counter.class).property("count").asProperty();
+        Counter counter = new Counter();
+        counter.count = 2;
+        assertThat(count.get(counter)).isEqualTo(2);
+        assertThat(count.getField().isAccessible()).isFalse();
+        assertThat(count.getGetter().isAccessible()).isFalse();
+
+        Property name = at(Person.class).property("name").asProperty();
+        name.set(new Person(), "Tom");
+        assertThat(name.getGetter().isAccessible()).isFalse();
+        assertThat(name.getSetter().isAccessible()).isFalse();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testPropertyException() {
+        at(Person.class).property("bean");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testPropertyOnFieldException() {
+        at(Person.class).field("name").property("name");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testAsPropertyException() {
+        at(Person.class).field("name").asProperty();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testSetReadOnlyException() {
+        at(Bean.class).property("size").asProperty().set(new Bean(), 1);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testSetGetterOnlyException() {
+        Property count = at(Counter.class).property("count").asProperty();
+        assertThat(count.getField()).isNotNull();
+        assertThat(count.isWritable()).isFalse();
+        count.set(new Counter(), 2);
+    }
+
+    @Test
+    public final void testInheritedExcluded() {
+        assertThat(at(Child.class).properties()).hasSize(1);
+        assertThat(at(Child.class).property("nickname").asProperty().getName()).isEqualTo("nickname");
+    }
+
+    public static class Bean {
+        private String hidden;
+
+        public int getSize() {
+            return 3;
+        }
+
+        private String getHidden() {
+            return hidden;
+        }
+    }
+
+    public static class Child extends Person {
+        private String nickname;
+
+        public String getNickname() {
+            return nickname;
+        }
+    }
+
+    private static class Counter {
+        private int count;
+
+        public int getCount() {
+            return count;
+        }
+    }
+}
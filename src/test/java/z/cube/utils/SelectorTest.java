@@ -0,0 +1,167 @@
+package z.cube.utils;
+
+import org.junit.Test;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.NotNull;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static z.cube.utils.AT.at;
+
+
+public class SelectorTest {
+
+    @Test
+    public final void testMethodParam() {
+        NotNull nn = Selector.compile("Person#setName(String)/name@NotNull").select(Person.class).get();
+        assertThat(nn).isNotNull();
+
+        NotNull nn2 = at("z.cube.utils.Person#setName(java.lang.String)[0]@javax.validation.constraints.NotNull").get();
+        assertThat(nn2).isEqualTo(nn);
+    }
+
+    @Test
+    public final void testConstructorParam() {
+        Max max = Selector.compile("Person.<init>(String,Integer)[1]@Max").select(Person.class).get();
+        assertThat(max).isNotNull();
+        assertThat(max.value()).isEqualTo(20);
+
+        Max max2 = at("z.cube.utils.Person.<init>(String, Integer)/age@Max").get();
+        assertThat(max2.value()).isEqualTo(20);
+    }
+
+    @Test
+    public final void testClassAndField() {
+        XmlRootElement x = at("z.cube.utils.Person@XmlRootElement").get();
+        assertThat(x.name()).isEqualTo("z.cube.utils.Person");
+
+        XmlAttribute att = at(Person.class).select("#name@XmlAttribute").get(0).get();
+        assertThat(att.name()).isEqualTo("NAME");
+
+        assertThat(at("z.cube.utils.Person#name").has(Deprecated.class)).isTrue();
+        assertThat(at("z.cube.utils.Person#age").has(Deprecated.class)).isFalse();
+    }
+
+    @Test
+    public final void testPackage() {
+        PackageAnnotationTest pat = at("z.cube.utils.Person.package@PackageAnnotationTest").get();
+        assertThat(pat).isNotNull();
+    }
+
+    @Test
+    public final void testAbsent() {
+        assertThat(at("z.cube.utils.Person#age@XmlAttribute").isPresent()).isFalse();
+        assertThat(at(Person.class).select("#*@Max")).isEmpty();
+        assertThat(at(Person.class).select("#age@Deprecated")).isEmpty();
+        assertThat(Selector.compile("z.cube.utils.Person#age@Deprecated").selectAll()).isEmpty();
+    }
+
+    @Test
+    public final void testContextClassLoader() throws Exception {
+        Selector selector = Selector.compile("z.cube.utils.Person#name");
+        URL location = Person.class.getProtectionDomain().getCodeSource().getLocation();
+        URLClassLoader loader = new URLClassLoader(new URL[]{location}, null);
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+        Class<?> other;
+        try {
+            other = ((Field) selector.select().object()).getDeclaringClass();
+            assertThat(((Field) selector.select().object()).getDeclaringClass()).isSameAs(other);
+        } finally {
+            thread.setContextClassLoader(previous);
+            loader.close();
+        }
+        assertThat(other.getName()).isEqualTo(Person.class.getName());
+        assertThat(other.getClassLoader()).isSameAs(loader);
+        assertThat(((Field) selector.select().object()).getDeclaringClass()).isEqualTo(Person.class);
+    }
+
+    @Test
+    public final void testWildcard() {
+        List<AT> atts = at(Person.class).select("#*@XmlAttribute");
+        assertThat(atts).hasSize(1);
+        assertThat(atts.get(0).<XmlAttribute>get().name()).isEqualTo("NAME");
+
+        List<AT> notNulls = at(Person.class).select("*#*(..)/*@NotNull");
+        assertThat(notNulls).hasSize(2);
+
+        List<AT> setters = at(Person.class).select("#set*(..)");
+        assertThat(setters).hasSize(2);
+
+        List<AT> anns = at(Person.class).select("#getName()@*");
+        for (AT ann : anns) {
+            assertThat(ann.<Annotation>get().annotationType()).isIn(Deprecated.class, javax.persistence.Transient.class);
+        }
+        assertThat(anns).hasSize(2);
+    }
+
+    @Test
+    public final void testWildcardSkipsMissingParam() {
+        List<AT> names = at(Person.class).select("#set*(..)/name");
+        assertThat(names).hasSize(1);
+        assertThat(at(Person.class).select("#set*(..)/name@*")).hasSize(1);
+        assertThat(at(Person.class).select("#set*(..)/name@NotNull").get(0).<NotNull>get()).isNotNull();
+        //只有构造函数和mutlEle有第二个参数
+        assertThat(at(Person.class).select("*#*(..)[1]")).hasSize(1);
+        assertThat(at(Person.class).select("*.<init>(..)[1]")).hasSize(1);
+    }
+
+    @Test
+    public final void testWildcardAnnotation() {
+        XmlAttribute att = at("z.cube.utils.Person#name@Xml*").get();
+        assertThat(att.name()).isEqualTo("NAME");
+        assertThat(at(Person.class).select("#name@javax.xml.bind.annotation.*")).hasSize(1);
+        assertThat(at(Person.class).select("#getName()@*e*")).hasSize(2);
+        assertThat(at(Person.class).select("#name@Max*")).isEmpty();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testMissingParamException() {
+        Selector.compile("Person#setAge(Integer)/name").select(Person.class);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testMissingIndexException() {
+        Selector.compile("Person#setAge(Integer)[1]").select(Person.class);
+    }
+
+    @Test
+    public final void testCompiledPlanIsCached() {
+        Selector selector = Selector.compile("Person#setName(String)/name@NotNull");
+        assertThat(Selector.compile("Person#setName(String)/name@NotNull")).isSameAs(selector);
+        assertThat(selector.selectAll(Person.class)).isSameAs(selector.selectAll(Person.class));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testSyntaxException() {
+        Selector.compile("Person#setName(String");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testParamOnFieldException() {
+        Selector.compile("Person#name/name");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testTypeMismatchException() {
+        Selector.compile("Employee#name").select(Person.class);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testMemberException() {
+        at("z.cube.utils.Person#setPerson()");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public final void testSelectException() {
+        at(Person.class).field("name").select("#name");
+    }
+}
@@ -0,0 +1,22 @@
+package z.cube.utils;
+
+import java.util.List;
+import java.util.Map;
+
+
+public class Team {
+    private List<@TypeUseAnnotationTest("member") String> members;
+
+    private Map<String, @TypeUseAnnotationTest("score") Integer> scores;
+
+    private @TypeUseAnnotationTest("alias") String @TypeUseAnnotationTest("aliases") [] aliases;
+
+    private List<? extends @TypeUseAnnotationTest("bound") Number> numbers;
+
+    private List<String> plain;
+
+    public Map<@TypeUseAnnotationTest("key") String, List<@TypeUseAnnotationTest("deep") Integer>> groups(
+            List<@TypeUseAnnotationTest("in") String> names, int size) {
+        return null;
+    }
+}